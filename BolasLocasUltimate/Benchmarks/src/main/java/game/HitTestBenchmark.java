@@ -0,0 +1,60 @@
+package game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Coste de resolver un clic: recorrido lineal de todas las bolas frente a la rejilla
+// espacial que usa Surface. gridAfterMove incluye la actualización de la rejilla
+// tras un paso, que es lo que paga el juego en cada frame.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class HitTestBenchmark {
+    private static final int POINTS = 1024;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int balls;
+
+    private BallStore store;
+    private final SpatialGrid grid = new SpatialGrid();
+    private final double[] px = new double[POINTS];
+    private final double[] py = new double[POINTS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = Worlds.random(balls, 42);
+        grid.update(store, Worlds.WIDTH, Worlds.HEIGHT);
+        Random r = new Random(3);
+        for (int i = 0; i < POINTS; i++) {
+            px[i] = r.nextDouble() * Worlds.WIDTH;
+            py[i] = r.nextDouble() * Worlds.HEIGHT;
+        }
+    }
+
+    @Benchmark
+    public int linear() {
+        int i = next++ & (POINTS - 1);
+        return store.topmostAt(px[i], py[i]);
+    }
+
+    @Benchmark
+    public int grid() {
+        int i = next++ & (POINTS - 1);
+        return grid.topmostAt(store, px[i], py[i]);
+    }
+
+    @Benchmark
+    public int gridAfterMove() {
+        store.savePrevious();
+        Ball.move(store, Worlds.STEP, Worlds.WIDTH, Worlds.HEIGHT);
+        grid.update(store, Worlds.WIDTH, Worlds.HEIGHT);
+        int i = next++ & (POINTS - 1);
+        return grid.topmostAt(store, px[i], py[i]);
+    }
+}
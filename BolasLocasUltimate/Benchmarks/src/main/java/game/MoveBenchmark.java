@@ -0,0 +1,39 @@
+package game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Coste de un paso de movimiento (Ball.move) secuencial y repartido en el ForkJoinPool.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MoveBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int balls;
+
+    private BallStore store;
+    private final ParallelMoveStep parallel = new ParallelMoveStep(0);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = Worlds.random(balls, 42);
+    }
+
+    @Benchmark
+    public BallStore move() {
+        store.savePrevious();
+        Ball.move(store, Worlds.STEP, Worlds.WIDTH, Worlds.HEIGHT);
+        return store;
+    }
+
+    @Benchmark
+    public BallStore moveParallel() {
+        store.savePrevious();
+        parallel.apply(store, Worlds.STEP, Worlds.WIDTH, Worlds.HEIGHT);
+        return store;
+    }
+}
@@ -0,0 +1,76 @@
+package game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// Coste de pintar un frame completo en una imagen fuera de pantalla (sin ventana,
+// funciona en modo headless). ovals es el pintado original con fillOval y drawOval
+// por bola; sprites es Ball.paint copiando imágenes de la caché; tiled es el
+// TiledRenderer repartiendo las baldosas en el ForkJoinPool común.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int balls;
+
+    private BallStore store;
+    private BufferedImage image;
+    private Graphics2D g;
+    private SpriteCache sprites;
+    private TiledRenderer tiled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = Worlds.random(balls, 42);
+        image = new BufferedImage(Worlds.WIDTH, Worlds.HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        sprites = new SpriteCache(64L << 20, 4096);
+        tiled = TiledRenderer.fromSystemProperties();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage ovals() {
+        clear();
+        for (int i = store.first(); i < store.end(); i++) {
+            int x = (int) store.getX(i);
+            int y = (int) store.getY(i);
+            int s = (int) store.getSize(i);
+            g.setColor(new Color(store.getColor(i), true));
+            g.fillOval(x, y, s, s);
+            g.setColor(Color.BLACK);
+            g.drawOval(x, y, s, s);
+        }
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage sprites() {
+        clear();
+        Ball.paint(g, store, 1.0, sprites);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage tiled() {
+        tiled.paint(g, store, 1.0, Worlds.WIDTH, Worlds.HEIGHT, RenderQuality.HIGH, Color.WHITE);
+        return image;
+    }
+
+    private void clear() {
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, Worlds.WIDTH, Worlds.HEIGHT);
+    }
+}
@@ -0,0 +1,30 @@
+package game;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+// Lanza los benchmarks y guarda los resultados en JSON.
+// Sin opciones escribe results/jmh-<versión>.json, que se puede comparar entre versiones
+// (por ejemplo con jmh.morethan.io). Acepta las opciones normales de JMH, como un filtro
+// de benchmarks, "-p balls=1000" o "-rff otro.json".
+public class RunBenchmarks {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        String version = RunBenchmarks.class.getPackage().getImplementationVersion();
+        File out = new File("results", "jmh-" + (version != null ? version : "dev") + ".json");
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmd);
+        if (!cmd.getResultFormat().hasValue()) builder.resultFormat(ResultFormatType.JSON);
+        if (!cmd.getResult().hasValue()) {
+            out.getParentFile().mkdirs();
+            builder.result(out.getPath());
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
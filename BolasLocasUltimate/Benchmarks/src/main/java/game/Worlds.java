@@ -0,0 +1,41 @@
+package game;
+
+import java.util.Random;
+
+// Mundos de prueba para los benchmarks.
+// Con pocas bolas se usan los tamaños del juego (150-450 px); con muchas el tamaño
+// baja para que ocupen más o menos la misma superficie de pantalla, si no pintar un
+// millón de bolas de 300 px mediría solo el relleno de píxeles. Los colores salen de
+// una paleta pequeña, como en una partida grande, para que la caché de sprites acierte.
+final class Worlds {
+    static final int WIDTH = 1920;
+    static final int HEIGHT = 1080;
+    static final long STEP = 1_000_000_000L / 60; // Un paso de simulación a 60 Hz
+
+    private static final int[] PALETTE = new int[16];
+
+    static {
+        Random r = new Random(7);
+        for (int i = 0; i < PALETTE.length; i++) PALETTE[i] = BallStore.argb(r.nextInt(256), r.nextInt(256), r.nextInt(256));
+    }
+
+    private Worlds() {
+    }
+
+    // Crea n bolas repartidas por la pantalla.
+    // @param n Número de bolas.
+    // @param seed Semilla, para que cada ejecución mida lo mismo.
+    static BallStore random(int n, long seed) {
+        Random r = new Random(seed);
+        int max = (int) Math.max(4, Math.min(450, 2 * Math.sqrt((double) WIDTH * HEIGHT / n)));
+        int min = Math.max(2, max / 3);
+        BallStore balls = new BallStore(n);
+        for (int i = 0; i < n; i++) {
+            double size = min + r.nextInt(max - min + 1);
+            balls.add(r.nextDouble() * (WIDTH - size), r.nextDouble() * (HEIGHT - size), size,
+                    r.nextDouble() * 2 * Math.PI, 50 + r.nextDouble() * 250, PALETTE[r.nextInt(PALETTE.length)]);
+        }
+        balls.savePrevious();
+        return balls;
+    }
+}
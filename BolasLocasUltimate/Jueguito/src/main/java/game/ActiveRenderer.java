@@ -0,0 +1,142 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+// Dibujado activo sobre un Canvas con BufferStrategy.
+// Un hilo propio es el único dueño del Graphics2D: avanza el GameLoop, dibuja el
+// frame en el buffer trasero y lo muestra (intercambio de páginas si el sistema lo
+// permite). Así no se depende de cuándo Swing decide atender los repaint().
+// El ritmo se ajusta a la frecuencia de refresco de la pantalla.
+public class ActiveRenderer extends Canvas {
+    // Quien sabe dibujar un frame completo.
+    public interface Painter {
+        // @param g Contexto gráfico del buffer trasero.
+        // @param w Ancho del área de dibujo.
+        // @param h Alto del área de dibujo.
+        // @param alpha Factor de interpolación de la simulación.
+        void paintFrame(Graphics2D g, int w, int h, double alpha);
+    }
+
+    private final Painter painter;
+    private final Runnable shown;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile boolean pageFlipping;
+    private volatile double frameMillis;   // Duración media de frame
+    private volatile double maxFrameMillis; // Peor frame del último segundo
+
+    public ActiveRenderer(Painter painter) {
+        this(painter, () -> { });
+    }
+
+    // @param shown Se llama en el hilo de dibujado cuando cada frame ya se ha mostrado
+    // (tras show() y sync()), para medir la latencia hasta la pantalla.
+    public ActiveRenderer(Painter painter, Runnable shown) {
+        this.painter = painter;
+        this.shown = shown;
+        setIgnoreRepaint(true);
+        setBackground(Color.BLACK);
+    }
+
+    // Arranca el hilo de dibujado. El Canvas debe estar ya en pantalla.
+    // @param loop Bucle de juego que se avanza antes de cada frame.
+    public synchronized void start(GameLoop loop) {
+        if (thread != null) return;
+        running = true;
+        thread = Scheduler.shared().newThread("active-renderer", Thread.NORM_PRIORITY, () -> run(loop));
+        thread.start();
+    }
+
+    // Detiene el hilo de dibujado y espera a que termine.
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try { thread.join(500); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            thread = null;
+        }
+    }
+
+    // Duración media de frame (milisegundos).
+    public double getFrameMillis() { return frameMillis; }
+
+    // Peor duración de frame del último segundo (milisegundos).
+    public double getMaxFrameMillis() { return maxFrameMillis; }
+
+    // Indica si la BufferStrategy usa intercambio de páginas.
+    public boolean isPageFlipping() { return pageFlipping; }
+
+    private void run(GameLoop loop) {
+        BufferStrategy strategy = createStrategy();
+        loop.resetClock(); // El tiempo que haya estado parado no se simula
+        long period = 1_000_000_000L / GameLoop.displayRefreshRate();
+        long next = System.nanoTime();
+        long last = next;
+        long windowStart = next;
+        double worst = 0;
+
+        while (running) {
+            double alpha = loop.advance(System.nanoTime());
+            int w = getWidth();
+            int h = getHeight();
+            if (w > 0 && h > 0) {
+                do {
+                    do {
+                        Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                        try {
+                            painter.paintFrame(g, w, h, alpha);
+                        } finally {
+                            g.dispose();
+                        }
+                    } while (strategy.contentsRestored());
+                    strategy.show();
+                    Toolkit.getDefaultToolkit().sync();
+                } while (strategy.contentsLost());
+                shown.run();
+            }
+
+            // Estadísticas de ritmo
+            long now = System.nanoTime();
+            double ms = (now - last) / 1e6;
+            last = now;
+            frameMillis = frameMillis == 0 ? ms : frameMillis * 0.95 + ms * 0.05;
+            worst = Math.max(worst, ms);
+            if (now - windowStart >= 1_000_000_000L) {
+                maxFrameMillis = worst;
+                worst = 0;
+                windowStart = now;
+            }
+
+            // Se espera hasta el siguiente instante de refresco. Si show() ya ha
+            // esperado al refresco vertical (intercambio de páginas), la espera es nula.
+            next += period;
+            if (next < now - period) next = now; // Nos hemos retrasado: no acumular
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0 && running) LockSupport.parkNanos(wait);
+        }
+        strategy.dispose();
+    }
+
+    // Crea la BufferStrategy intentando primero el intercambio de páginas acelerado,
+    // salvo que PipelineProbe haya visto que la aceleración no funciona.
+    private BufferStrategy createStrategy() {
+        try {
+            if (PipelineProbe.accelerated()) {
+                BufferCapabilities flip = new BufferCapabilities(new ImageCapabilities(true),
+                        new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED);
+                createBufferStrategy(2, flip);
+                pageFlipping = true;
+            } else {
+                createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(false),
+                        new ImageCapabilities(false), null));
+                pageFlipping = false;
+            }
+        } catch (AWTException e) {
+            createBufferStrategy(2);
+            pageFlipping = getBufferStrategy().getCapabilities().isPageFlipping();
+        }
+        return getBufferStrategy();
+    }
+}
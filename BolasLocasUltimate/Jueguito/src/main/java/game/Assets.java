@@ -0,0 +1,114 @@
+package game;
+
+import java.io.FileNotFoundException;
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// Gestor de recursos del juego.
+// Los recursos se buscan en el classpath (target/classes o dentro del jar), nunca
+// por rutas del árbol de código. Se cargan en paralelo en segundo plano (en los
+// workers del Scheduler: hilos virtuales si la JVM los tiene),
+// se guardan en caché con contador de referencias y se anota cuánto tardó cada uno.
+public class Assets {
+    private static final Assets SHARED = new Assets(Scheduler.shared().workers());
+
+    // Convierte un recurso del classpath en el objeto que se guarda en caché.
+    public interface Loader<T> {
+        T load(URL url) throws Exception;
+    }
+
+    private final Executor executor;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<String, Double> loadMillis = new ConcurrentHashMap<>();
+
+    // Constructor.
+    // @param executor Dónde se ejecutan las cargas.
+    public Assets(Executor executor) {
+        this.executor = executor;
+    }
+
+    // Gestor compartido por todo el juego.
+    public static Assets shared() { return SHARED; }
+
+    // Localiza un recurso en el classpath.
+    // @param name Nombre del recurso, por ejemplo "acierto.wav".
+    public static URL resolve(String name) throws FileNotFoundException {
+        URL url = Assets.class.getResource("/" + name);
+        if (url == null) throw new FileNotFoundException("Recurso no encontrado en el classpath: " + name);
+        return url;
+    }
+
+    // Obtiene un recurso y suma una referencia. Si no estaba en caché empieza a
+    // cargarlo en segundo plano; la carga se comparte entre todos los que lo piden.
+    // @param name Nombre del recurso.
+    // @param loader Cómo convertirlo.
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> acquire(String name, Loader<T> loader) {
+        Entry e = cache.compute(name, (k, old) -> {
+            Entry entry = old != null ? old : new Entry(load(k, loader));
+            entry.refs++;
+            return entry;
+        });
+        return (CompletableFuture<T>) e.value;
+    }
+
+    // Carga varios recursos en paralelo (una referencia por recurso).
+    public <T> CompletableFuture<Void> preload(Loader<T> loader, String... names) {
+        CompletableFuture<?>[] all = new CompletableFuture<?>[names.length];
+        for (int i = 0; i < names.length; i++) all[i] = acquire(names[i], loader);
+        return CompletableFuture.allOf(all);
+    }
+
+    // Resta una referencia; al llegar a cero el recurso sale de la caché.
+    public void release(String name) {
+        cache.computeIfPresent(name, (k, e) -> --e.refs <= 0 ? null : e);
+    }
+
+    // Referencias actuales de un recurso (0 si no está en caché).
+    public int references(String name) {
+        Entry e = cache.get(name);
+        return e == null ? 0 : e.refs;
+    }
+
+    // Tiempo de carga de cada recurso cargado hasta ahora (milisegundos).
+    public Map<String, Double> getLoadTimes() {
+        return new TreeMap<>(loadMillis);
+    }
+
+    // Suma de los tiempos de carga (milisegundos), para la línea de estadísticas.
+    public double getTotalLoadMillis() {
+        double total = 0;
+        for (double ms : loadMillis.values()) total += ms;
+        return total;
+    }
+
+    // Recursos cargados hasta ahora.
+    public int getLoaded() { return loadMillis.size(); }
+
+    private <T> CompletableFuture<Object> load(String name, Loader<T> loader) {
+        return CompletableFuture.supplyAsync(() -> {
+            long t0 = System.nanoTime();
+            try {
+                Object value = loader.load(resolve(name));
+                loadMillis.put(name, (System.nanoTime() - t0) / 1e6);
+                return value;
+            } catch (Exception ex) {
+                throw new IllegalStateException("No se pudo cargar " + name + ": " + ex.getMessage(), ex);
+            }
+        }, executor);
+    }
+
+    // Entrada de la caché. refs solo se modifica dentro de compute(), que es atómico por clave.
+    private static final class Entry {
+        final CompletableFuture<Object> value;
+        int refs;
+
+        Entry(CompletableFuture<Object> value) {
+            this.value = value;
+        }
+    }
+}
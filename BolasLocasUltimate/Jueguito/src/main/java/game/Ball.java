@@ -2,71 +2,88 @@ package game;
 
 import java.awt.*;
 
-public class Ball {
-    private Surface surface;
-    private int size;
-    private double x;
-    private double y;
-    private double vx;
-    private double vy;
-    private Color color;
+// Comportamiento de las bolas. Los datos viven en un BallStore y aquí se
+// procesan por lotes sobre rangos de índices, sin crear objetos por bola.
+public final class Ball {
+    private static final ThreadLocal<Rectangle> CLIP = ThreadLocal.withInitial(Rectangle::new); // Recorte reutilizado por hilo
+    private static final Color[] PALETTE = new Color[512]; // 3 bits por canal, para RenderQuality.MINIMAL
 
-    // Constructor de la bola
-    public Ball(Surface surface, double x, double y, int size, double direction, double speed, Color color) {
-        this.x = x;
-        this.y = y;
-        this.size = size;
-        this.vx = Math.cos(direction) * speed;
-        this.vy = Math.sin(direction) * speed;
-        this.surface = surface;
-        this.color = color;
+    static {
+        for (int i = 0; i < PALETTE.length; i++) {
+            PALETTE[i] = new Color((i >> 6) << 5 | 16, (i >> 3 & 7) << 5 | 16, (i & 7) << 5 | 16); // Igual que RenderQuality.color
+        }
     }
 
-    // Dibuja la bola
-    public void paint(Graphics2D g) {
-        g.setColor(color);
-        g.fillOval((int) x, (int) y, size, size);
-    }
+    private Ball() {}
 
-    // Mueve la bola y gestiona rebotes
-    public void move(long lapse, int width, int height) {
-        x += (lapse * vx) / 1000000000L;
-        y += (lapse * vy) / 1000000000L;
+    // Mueve las bolas [from, to) y gestiona rebotes con los bordes.
+    // @param balls Almacén de bolas.
+    // @param lapse Tiempo transcurrido (nanosegundos).
+    public static void move(BallStore balls, int from, int to, long lapse, int width, int height) {
+        final double dt = lapse / 1_000_000_000.0;
+        final double[] x = balls.x, y = balls.y, vx = balls.vx, vy = balls.vy, size = balls.size;
+        for (int i = from; i < to; i++) {
+            double s = size[i];
+            double nx = x[i] + dt * vx[i];
+            double ny = y[i] + dt * vy[i];
 
-        if (x + size >= width) {
-            x = 2 * width - x - 2 * size;
-            vx *= -1;
-        } else if (x < 0) {
-            x = -x;
-            vx *= -1;
-        }
+            if (nx + s >= width) {
+                nx = 2 * width - nx - 2 * s;
+                vx[i] = -vx[i];
+            } else if (nx < 0) {
+                nx = -nx;
+                vx[i] = -vx[i];
+            }
 
-        if (y + size >= height) {
-            y = 2 * height - y - 2 * size;
-            vy *= -1;
-        } else if (y < 0) {
-            y = -y;
-            vy *= -1;
+            if (ny + s >= height) {
+                ny = 2 * height - ny - 2 * s;
+                vy[i] = -vy[i];
+            } else if (ny < 0) {
+                ny = -ny;
+                vy[i] = -vy[i];
+            }
+            x[i] = nx;
+            y[i] = ny;
         }
     }
 
-    // Getters y setters
-    public Color getColor() {
-        return color;
-    }
-    public void setColor(Color color) {
-        this.color = color;
-    }
-    public double getX() {
-        return x;
+    // Mueve todas las bolas del almacén.
+    public static void move(BallStore balls, long lapse, int width, int height) {
+        move(balls, balls.first(), balls.end(), lapse, width, height);
     }
-    public double getY() {
-        return y;
-    }
-    public int getSize() {
-        return size;
+
+    // Dibuja todas las bolas del fondo al frente copiando su imagen de la caché.
+    // Las bolas que quedan fuera del recorte actual no se dibujan.
+    // @param alpha Factor de interpolación entre el paso anterior y el actual.
+    // @param sprites Caché de imágenes de bolas.
+    public static void paint(Graphics2D g, BallStore balls, double alpha, SpriteCache sprites) {
+        paint(g, balls, alpha, sprites, RenderQuality.HIGH);
     }
-    public void setSize(int size) {
-        this.size = size;
+
+    // Igual, con el nivel de calidad indicado (ver QualityController).
+    // @param quality Acabado de los sprites, o cuadrados sin sprites en MINIMAL.
+    public static void paint(Graphics2D g, BallStore balls, double alpha, SpriteCache sprites, RenderQuality quality) {
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        boolean useSprites = quality.usesSprites();
+        // getClipBounds() crearía un Rectangle por frame; sin recorte deja el de partida intacto
+        Rectangle clip = CLIP.get();
+        clip.setBounds(Integer.MIN_VALUE / 2, Integer.MIN_VALUE / 2, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        g.getClipBounds(clip);
+        for (int i = balls.first(), end = balls.end(); i < end; i++) {
+            int px = (int) balls.renderX(i, alpha);
+            int py = (int) balls.renderY(i, alpha);
+            int s = (int) balls.getSize(i) + 1;
+            if (px >= clip.x + clip.width || py >= clip.y + clip.height
+                    || px + s <= clip.x || py + s <= clip.y) continue;
+            int argb = balls.getColor(i);
+            if (!useSprites) {
+                g.setColor(PALETTE[(argb >> 21 & 7) << 6 | (argb >> 13 & 7) << 3 | (argb >> 5 & 7)]);
+                g.fillRect(px, py, s - 1, s - 1);
+                continue;
+            }
+            Image sprite = sprites.get(gc, quality.size((int) balls.getSize(i)), quality.color(argb),
+                    quality.antialias, quality.outline);
+            g.drawImage(sprite, px, py, null);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,247 @@
+package game;
+
+// Almacén de bolas en formato "structure of arrays": cada propiedad vive en su
+// propio array primitivo en lugar de tener un objeto Ball por bola.
+// Las bolas ocupan los índices [first(), end()) ordenados de fondo a frente: first()
+// es la bola más al fondo y front() la más al frente. Es una cola doble sobre arrays
+// contiguos, con hueco libre a ambos lados: añadir al fondo ocupa el índice anterior a
+// first() y añadir o quitar del frente mueve end(), sin desplazar nada. Así los recorridos
+// siguen siendo lineales y el índice de cada bola le sirve de identificador estable
+// mientras no cambie version().
+public class BallStore {
+    // Arrays paralelos. Son de paquete para que Ball.move pueda recorrerlos sin getters.
+    double[] x;
+    double[] y;
+    double[] prevX; // Posición al inicio del último paso, para interpolar al dibujar
+    double[] prevY;
+    double[] vx;
+    double[] vy;
+    double[] size;
+    int[] color; // ARGB empaquetado
+    private int first; // Índice de la bola más al fondo
+    private int count;
+    private int version; // Cambia cuando un índice puede pasar a ser de otra bola
+
+    // Constructor. Reserva espacio para el número de bolas indicado.
+    // @param capacity Capacidad inicial.
+    public BallStore(int capacity) {
+        allocate(Math.max(capacity, 8));
+    }
+
+    // Número de bolas almacenadas.
+    public int size() { return count; }
+
+    public boolean isEmpty() { return count == 0; }
+
+    // Índice de la bola más al fondo.
+    public int first() { return first; }
+
+    // Índice siguiente al de la bola más al frente.
+    public int end() { return first + count; }
+
+    // Índice de la bola más al frente, o -1 si no hay bolas.
+    public int front() { return count > 0 ? first + count - 1 : -1; }
+
+    // Indica si la bola i es la que está más al frente.
+    public boolean isFront(int i) { return count > 0 && i == first + count - 1; }
+
+    // Versión de la estructura. Añadir al fondo y quitar del frente no la cambian: el resto
+    // de bolas conserva su índice. Cambia al añadir al frente (puede reutilizar el índice
+    // de una bola quitada), al quitar cualquier otra bola, al vaciar y cuando recentre() mueve las bolas.
+    public int version() { return version; }
+
+    // Añade una bola al frente (índice más alto).
+    // @return Índice de la nueva bola.
+    public int add(double x, double y, double size, double direction, double speed, int argb) {
+        if (first + count == this.x.length) recentre();
+        int i = first + count;
+        set(i, x, y, size, direction, speed, argb);
+        version++;
+        count++;
+        return i;
+    }
+
+    // Añade una bola al fondo (en el índice anterior a first()). Solo mueve bolas si no
+    // queda hueco libre al principio (ver recentre).
+    // @return Índice de la nueva bola.
+    public int addBack(double x, double y, double size, double direction, double speed, int argb) {
+        if (first == 0) recentre();
+        first--;
+        set(first, x, y, size, direction, speed, argb);
+        count++;
+        return first;
+    }
+
+    // Quita la bola más al frente.
+    public void removeFront() {
+        if (count == 0) throw new IndexOutOfBoundsException("No hay bolas");
+        count--;
+    }
+
+    // Elimina la bola del índice indicado conservando el orden del resto.
+    // Desplaza el lado más corto: las bolas del fondo hacia delante o las del frente hacia atrás.
+    public void remove(int i) {
+        if (i < first || i >= first + count) {
+            throw new IndexOutOfBoundsException("Índice: " + i + ", bolas: [" + first + ", " + end() + ")");
+        }
+        if (i == first + count - 1) {
+            removeFront();
+            return;
+        }
+        if (i - first < first + count - 1 - i) {
+            shift(first, first + 1, i - first);
+            first++;
+        } else {
+            shift(i + 1, i, first + count - i - 1);
+        }
+        version++;
+        count--;
+    }
+
+    // Guarda la posición actual como anterior. Se llama al inicio de cada paso fijo.
+    public void savePrevious() {
+        System.arraycopy(x, first, prevX, first, count);
+        System.arraycopy(y, first, prevY, first, count);
+    }
+
+    // Posición interpolada entre el paso anterior y el actual.
+    // @param alpha Factor de interpolación (0 = anterior, 1 = actual).
+    public double renderX(int i, double alpha) { return prevX[i] + (x[i] - prevX[i]) * alpha; }
+    public double renderY(int i, double alpha) { return prevY[i] + (y[i] - prevY[i]) * alpha; }
+
+    // Copia todas las bolas de otro almacén en los mismos índices, reutilizando los arrays si caben.
+    public void copyFrom(BallStore src) {
+        int from = src.first, n = src.count;
+        if (x.length < from + n) allocate(src.x.length);
+        System.arraycopy(src.x, from, x, from, n);
+        System.arraycopy(src.y, from, y, from, n);
+        System.arraycopy(src.prevX, from, prevX, from, n);
+        System.arraycopy(src.prevY, from, prevY, from, n);
+        System.arraycopy(src.vx, from, vx, from, n);
+        System.arraycopy(src.vy, from, vy, from, n);
+        System.arraycopy(src.size, from, size, from, n);
+        System.arraycopy(src.color, from, color, from, n);
+        first = from;
+        count = n;
+        version = src.version;
+    }
+
+    // Vacía el almacén sin liberar la memoria reservada.
+    public void clear() {
+        first = 0;
+        count = 0;
+        version++;
+    }
+
+    // Getters por índice
+    public double getX(int i) { return x[i]; }
+    public double getY(int i) { return y[i]; }
+    public double getVx(int i) { return vx[i]; }
+    public double getVy(int i) { return vy[i]; }
+    public double getSize(int i) { return size[i]; }
+    public int getColor(int i) { return color[i]; }
+
+    // Indica si el punto (px, py) cae dentro de la bola i (compara distancias al cuadrado).
+    public boolean contains(int i, double px, double py) {
+        double r = size[i] / 2.0;
+        double dx = px - (x[i] + r);
+        double dy = py - (y[i] + r);
+        return dx * dx + dy * dy <= r * r;
+    }
+
+    // Busca la bola más al frente que contiene el punto (px, py).
+    // @return Índice de la bola o -1 si no hay ninguna.
+    public int topmostAt(double px, double py) {
+        for (int i = first + count - 1; i >= first; i--) {
+            if (contains(i, px, py)) return i;
+        }
+        return -1;
+    }
+
+    // Huella del estado de todas las bolas (posición, velocidad, tamaño y color, bit a bit).
+    // Dos almacenes con la misma huella están, casi con seguridad, en el mismo estado.
+    // Solo depende del orden de las bolas, no de en qué índices estén.
+    public long checksum() {
+        long h = 0xcbf29ce484222325L ^ count;
+        for (int i = first, end = first + count; i < end; i++) {
+            h = mix(h, Double.doubleToLongBits(x[i]));
+            h = mix(h, Double.doubleToLongBits(y[i]));
+            h = mix(h, Double.doubleToLongBits(vx[i]));
+            h = mix(h, Double.doubleToLongBits(vy[i]));
+            h = mix(h, Double.doubleToLongBits(size[i]));
+            h = mix(h, color[i]);
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        h ^= v;
+        h *= 0x100000001b3L;
+        return h ^ (h >>> 29);
+    }
+
+    // Empaqueta un color RGB opaco en formato ARGB.
+    public static int argb(int r, int g, int b) {
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private void set(int i, double x, double y, double size, double direction, double speed, int argb) {
+        this.x[i] = x;
+        this.y[i] = y;
+        this.prevX[i] = x;
+        this.prevY[i] = y;
+        this.size[i] = size;
+        this.vx[i] = Math.cos(direction) * speed;
+        this.vy[i] = Math.sin(direction) * speed;
+        this.color[i] = argb;
+    }
+
+    private void shift(int from, int to, int length) {
+        if (length <= 0) return;
+        System.arraycopy(x, from, x, to, length);
+        System.arraycopy(y, from, y, to, length);
+        System.arraycopy(prevX, from, prevX, to, length);
+        System.arraycopy(prevY, from, prevY, to, length);
+        System.arraycopy(vx, from, vx, to, length);
+        System.arraycopy(vy, from, vy, to, length);
+        System.arraycopy(size, from, size, to, length);
+        System.arraycopy(color, from, color, to, length);
+    }
+
+    // Deja las bolas en el centro de los arrays, con hueco libre a ambos lados. Si ocupan
+    // menos de la mitad basta con moverlas; si no, los arrays se duplican. Como después
+    // hay que añadir al menos un cuarto de la capacidad antes de repetirlo, añadir por
+    // cualquiera de los dos extremos cuesta O(1) amortizado aunque las bolas se desplacen.
+    private void recentre() {
+        int c = count < x.length / 2 ? x.length : Math.max(8, x.length * 2);
+        int to = (c - count) / 2;
+        if (c == x.length) {
+            shift(first, to, count);
+        } else {
+            double[] ox = x, oy = y, opx = prevX, opy = prevY, ovx = vx, ovy = vy, os = size;
+            int[] oc = color;
+            allocate(c);
+            System.arraycopy(ox, first, x, to, count);
+            System.arraycopy(oy, first, y, to, count);
+            System.arraycopy(opx, first, prevX, to, count);
+            System.arraycopy(opy, first, prevY, to, count);
+            System.arraycopy(ovx, first, vx, to, count);
+            System.arraycopy(ovy, first, vy, to, count);
+            System.arraycopy(os, first, size, to, count);
+            System.arraycopy(oc, first, color, to, count);
+        }
+        if (to != first) version++;
+        first = to;
+    }
+
+    private void allocate(int c) {
+        x = new double[c];
+        y = new double[c];
+        prevX = new double[c];
+        prevY = new double[c];
+        vx = new double[c];
+        vy = new double[c];
+        size = new double[c];
+        color = new int[c];
+    }
+}
@@ -5,13 +5,32 @@ import java.awt.*;
 import java.awt.event.*;
 
 public class ConfigPanel extends JPanel implements MouseListener {
+    // Por encima de MAX_NORMAL el contador salta por estos valores (modo masivo)
+    private static final int MAX_NORMAL = GameWorld.DENSITY_BALLS;
+    private static final int[] MASIVO = { 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000 };
+
     private int numBolas = 10;
     private int tiempo = 30;
-    private Rectangle menosBolas = new Rectangle(180, 120, 40, 40);
-    private Rectangle masBolas = new Rectangle(330, 120, 40, 40);
-    private Rectangle menosTiempo = new Rectangle(180, 200, 40, 40);
-    private Rectangle masTiempo = new Rectangle(330, 200, 40, 40);
-    private Rectangle playRect = new Rectangle(200, 300, 200, 60);
+    private boolean choques = false;
+    // Geometría de los botones: se calcula al cambiar de tamaño, no en cada frame
+    private final Rectangle menosBolas = new Rectangle(180, 120, 40, 40);
+    private final Rectangle masBolas = new Rectangle(330, 120, 40, 40);
+    private final Rectangle menosTiempo = new Rectangle(180, 200, 40, 40);
+    private final Rectangle masTiempo = new Rectangle(330, 200, 40, 40);
+    private final Rectangle choquesRect = new Rectangle(180, 280, 130, 40);
+    private final Rectangle playRect = new Rectangle(200, 300, 200, 60);
+    private int centerX, tituloY, yBolas, yTiempo, yChoques, yBoton;
+
+    // Textos: los números solo se recomponen cuando cambian
+    private final TextLabel titulo = new TextLabel(RenderResources.PANEL_TITLE).setText("Configuración");
+    private final TextLabel jugar = new TextLabel(RenderResources.PANEL_TITLE).setText("JUGAR");
+    private final TextLabel bolasLabel = new TextLabel(RenderResources.LABEL, "", "");
+    private final TextLabel tiempoLabel = new TextLabel(RenderResources.LABEL, "", " s");
+    private final TextLabel masivoLabel = new TextLabel(RenderResources.STATS)
+            .setText("Modo masivo: bolas más pequeñas y calidad adaptativa");
+    private final TextLabel masivoSinChoquesLabel = new TextLabel(RenderResources.STATS)
+            .setText("Modo masivo: bolas más pequeñas, calidad adaptativa y sin choques");
     private Runnable onPlay;
 
     // Constructor del panel de configuración
@@ -20,6 +39,13 @@ public class ConfigPanel extends JPanel implements MouseListener {
         setPreferredSize(screenSize);
         setBackground(Color.GRAY);
         this.onPlay = onPlay;
+        layoutButtons(screenSize.width, screenSize.height);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                layoutButtons(getWidth(), getHeight());
+            }
+        });
         addMouseListener(this);
         setFocusable(true);
 
@@ -45,6 +71,11 @@ public class ConfigPanel extends JPanel implements MouseListener {
     // Getters
     public int getNumBolas() { return numBolas; }
     public int getTiempo() { return tiempo; }
+    public boolean isChoques() { return choques && choquesPermitidos(); }
+
+    // Por encima de CollisionStep.MAX_BALLS los choques no caben en un frame, así que el
+    // interruptor queda bloqueado en NO.
+    private boolean choquesPermitidos() { return numBolas <= CollisionStep.MAX_BALLS; }
 
     @Override
     protected void paintComponent(Graphics g) {
@@ -52,36 +83,24 @@ public class ConfigPanel extends JPanel implements MouseListener {
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        int panelWidth = getWidth();
-        int panelHeight = getHeight();
-
         // Centra el título
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 32));
-        String titulo = "Configuración";
-        int tituloWidth = g2d.getFontMetrics().stringWidth(titulo);
-        g2d.drawString(titulo, (panelWidth - tituloWidth) / 2, panelHeight / 6);
-
-        g2d.setFont(new Font("Arial", Font.PLAIN, 24));
-        // Calcula posiciones relativas
-        int centerX = panelWidth / 2;
-        int yBolas = panelHeight / 3;
-        int yTiempo = yBolas + 80;
-        int yBoton = yTiempo + 120;
+        titulo.drawCentered(g2d, centerX, tituloY);
 
         // Etiquetas y valores
+        g2d.setFont(RenderResources.LABEL);
         g2d.drawString("Bolas:", centerX - 150, yBolas);
-        g2d.drawString(String.valueOf(numBolas), centerX + 30, yBolas);
+        bolasLabel.set(numBolas).draw(g2d, centerX + 40, yBolas);
+        if (numBolas > MAX_NORMAL) {
+            (choquesPermitidos() ? masivoLabel : masivoSinChoquesLabel).draw(g2d, centerX - 10, yBolas + 30);
+        }
+        g2d.setFont(RenderResources.LABEL);
         g2d.drawString("Tiempo:", centerX - 150, yTiempo);
-        g2d.drawString(String.valueOf(tiempo) + " s", centerX + 30, yTiempo);
+        tiempoLabel.set(tiempo).draw(g2d, centerX + 40, yTiempo);
+        g2d.setFont(RenderResources.LABEL);
+        g2d.drawString("Choques:", centerX - 150, yChoques);
 
         // Botones de + y -
-        int botonAncho = 40, botonAlto = 40;
-        menosBolas = new Rectangle(centerX - 10, yBolas - 30, botonAncho, botonAlto);
-        masBolas = new Rectangle(centerX + 80, yBolas - 30, botonAncho, botonAlto);
-        menosTiempo = new Rectangle(centerX - 10, yTiempo - 30, botonAncho, botonAlto);
-        masTiempo = new Rectangle(centerX + 80, yTiempo - 30, botonAncho, botonAlto);
-
         g2d.setColor(Color.LIGHT_GRAY);
         g2d.fill(menosBolas); g2d.fill(masBolas);
         g2d.fill(menosTiempo); g2d.fill(masTiempo);
@@ -89,38 +108,80 @@ public class ConfigPanel extends JPanel implements MouseListener {
         g2d.draw(menosBolas); g2d.draw(masBolas);
         g2d.draw(menosTiempo); g2d.draw(masTiempo);
 
-        g2d.setFont(new Font("Arial", Font.BOLD, 28));
+        // Interruptor de choques entre bolas
+        boolean activos = isChoques();
+        g2d.setColor(!choquesPermitidos() ? Color.DARK_GRAY : activos ? Color.GREEN : Color.LIGHT_GRAY);
+        g2d.fill(choquesRect);
+        g2d.setColor(Color.BLACK);
+        g2d.draw(choquesRect);
+        g2d.drawString(activos ? "SÍ" : "NO", choquesRect.x + 45, choquesRect.y + 30);
+
+        g2d.setFont(RenderResources.SIGN);
         g2d.drawString("-", menosBolas.x + 12, menosBolas.y + 30);
         g2d.drawString("+", masBolas.x + 8, masBolas.y + 30);
         g2d.drawString("-", menosTiempo.x + 12, menosTiempo.y + 30);
         g2d.drawString("+", masTiempo.x + 8, masTiempo.y + 30);
 
         // Botón JUGAR centrado
-        int botonJugarAncho = 200, botonJugarAlto = 60;
-        playRect = new Rectangle(centerX - botonJugarAncho / 2, yBoton, botonJugarAncho, botonJugarAlto);
         g2d.setColor(Color.ORANGE);
         g2d.fill(playRect);
         g2d.setColor(Color.BLACK);
         g2d.draw(playRect);
-        g2d.setFont(new Font("Arial", Font.BOLD, 32));
-        String jugar = "JUGAR";
-        int jugarWidth = g2d.getFontMetrics().stringWidth(jugar);
-        g2d.drawString(jugar, centerX - jugarWidth / 2, yBoton + 42);
+        jugar.drawCentered(g2d, centerX, yBoton + 42);
+    }
+
+    // Calcula posiciones relativas al tamaño del panel.
+    // @param panelWidth Ancho del panel.
+    // @param panelHeight Alto del panel.
+    private void layoutButtons(int panelWidth, int panelHeight) {
+        centerX = panelWidth / 2;
+        tituloY = panelHeight / 6;
+        yBolas = panelHeight / 3;
+        yTiempo = yBolas + 80;
+        yChoques = yTiempo + 80;
+        yBoton = yChoques + 120;
 
-       
+        int botonAncho = 40, botonAlto = 40;
+        menosBolas.setBounds(centerX - 10, yBolas - 30, botonAncho, botonAlto);
+        masBolas.setBounds(centerX + 150, yBolas - 30, botonAncho, botonAlto); // Cabe "1000000"
+        menosTiempo.setBounds(centerX - 10, yTiempo - 30, botonAncho, botonAlto);
+        masTiempo.setBounds(centerX + 150, yTiempo - 30, botonAncho, botonAlto);
+        choquesRect.setBounds(centerX - 10, yChoques - 30, 130, botonAlto);
+
+        int botonJugarAncho = 200, botonJugarAlto = 60;
+        playRect.setBounds(centerX - botonJugarAncho / 2, yBoton, botonJugarAncho, botonJugarAlto);
     }
 
     @Override
     public void mouseClicked(MouseEvent e) {
         int mx = e.getX(), my = e.getY();
-        if (menosBolas.contains(mx, my) && numBolas > 1) { numBolas--; repaint(); }
-        else if (masBolas.contains(mx, my) && numBolas < 50) { numBolas++; repaint(); }
+        if (menosBolas.contains(mx, my) && numBolas > 1) { numBolas = menos(numBolas); repaint(); }
+        else if (masBolas.contains(mx, my) && numBolas < MASIVO[MASIVO.length - 1]) { numBolas = mas(numBolas); repaint(); }
         else if (menosTiempo.contains(mx, my) && tiempo > 5) { tiempo -= 5; repaint(); }
         else if (masTiempo.contains(mx, my) && tiempo < 120) { tiempo += 5; repaint(); }
+        else if (choquesRect.contains(mx, my) && choquesPermitidos()) { choques = !choques; repaint(); }
         else if (playRect.contains(mx, my)) {
             if (onPlay != null) onPlay.run();
         }
     }
+    // Siguiente número de bolas: de uno en uno hasta MAX_NORMAL y luego por la escala MASIVO.
+    private static int mas(int n) {
+        if (n < MAX_NORMAL) return n + 1;
+        for (int v : MASIVO) if (v > n) return v;
+        return n;
+    }
+
+    // Número de bolas anterior.
+    private static int menos(int n) {
+        if (n <= MAX_NORMAL) return n - 1;
+        int prev = MAX_NORMAL;
+        for (int v : MASIVO) {
+            if (v >= n) break;
+            prev = v;
+        }
+        return prev;
+    }
+
     @Override public void mousePressed(MouseEvent e) {}
     @Override public void mouseReleased(MouseEvent e) {}
     @Override public void mouseEntered(MouseEvent e) {}
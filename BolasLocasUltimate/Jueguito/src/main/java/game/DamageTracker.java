@@ -0,0 +1,140 @@
+package game;
+
+import java.util.Arrays;
+
+// Seguimiento de zonas dañadas para repintar solo lo que cambia.
+// La pantalla se divide en losetas; cada frame se marcan las losetas que tocan la
+// caja anterior y la nueva de cada bola, más las zonas del texto del HUD. Después
+// las losetas marcadas se agrupan en pocos rectángulos. Si el daño cubre casi toda
+// la pantalla se repinta entera, que sale más barato que muchos recortes.
+// Si las bolas cambian de índice (versión distinta del BallStore) se repinta todo.
+// Solo lo usa el EDT, que marca y recoge el daño de cada frame que pinta.
+public class DamageTracker {
+    private static final int TILE = 32;
+    private static final double FULL_THRESHOLD = 0.5; // Fracción de pantalla a partir de la que se repinta todo
+    private static final int MAX_REGIONS = 64;
+
+    private int width;
+    private int height;
+    private int cols;
+    private int rows;
+    private boolean[] tiles = new boolean[0];
+    private boolean full = true;
+
+    // Cajas barridas por cada bola en el último frame marcado: x0, y0, x1, y1
+    private int[] last = new int[0];
+    private int lastCount = -1;
+    private int lastFirst;
+    private int lastVersion;
+
+    // Métrica: fracción de píxeles que no hizo falta repintar (media móvil)
+    private double savedFraction;
+
+    // Fuerza un repintado completo (cambio de tamaño, bolas añadidas o quitadas...).
+    public void invalidate() {
+        full = true;
+        lastCount = -1;
+    }
+
+    // Marca el daño causado por el movimiento de las bolas.
+    // Cada bola se dibuja en algún punto entre su posición anterior y la actual,
+    // así que se marca la caja que las contiene a ambas, junto a la del frame anterior.
+    public void addBalls(BallStore balls, int w, int h) {
+        resize(w, h);
+        int n = balls.size(), first = balls.first();
+        if (last.length < n * 4) last = Arrays.copyOf(last, Math.max(n * 4, last.length * 2));
+        boolean sameBalls = n == lastCount && first == lastFirst && balls.version() == lastVersion;
+        for (int i = first, end = balls.end(); i < end; i++) {
+            double s = balls.size[i] + 1;
+            int x0 = (int) Math.min(balls.prevX[i], balls.x[i]);
+            int y0 = (int) Math.min(balls.prevY[i], balls.y[i]);
+            int x1 = (int) Math.ceil(Math.max(balls.prevX[i], balls.x[i]) + s);
+            int y1 = (int) Math.ceil(Math.max(balls.prevY[i], balls.y[i]) + s);
+            int k = (i - first) * 4;
+            if (sameBalls) mark(last[k], last[k + 1], last[k + 2], last[k + 3]);
+            mark(x0, y0, x1, y1);
+            last[k] = x0;
+            last[k + 1] = y0;
+            last[k + 2] = x1;
+            last[k + 3] = y1;
+        }
+        if (!sameBalls) full = true;
+        lastCount = n;
+        lastFirst = first;
+        lastVersion = balls.version();
+    }
+
+    // Marca un rectángulo como dañado (por ejemplo, un texto del HUD).
+    public void addRect(int x, int y, int w, int h) {
+        mark(x, y, x + w, y + h);
+    }
+
+    // Recoge el daño acumulado y lo deja limpio.
+    // @param out Rectángulos resultantes (x, y, ancho, alto consecutivos).
+    // @return Número de rectángulos, o -1 si hay que repintar la pantalla entera.
+    public int drain(int[] out) {
+        int total = cols * rows;
+        int dirty = 0;
+        for (int t = 0; t < total; t++) if (tiles[t]) dirty++;
+        int maxRegions = Math.min(MAX_REGIONS, out.length / 4);
+        int count = 0;
+        boolean wholeScreen = full || total == 0 || dirty > total * FULL_THRESHOLD;
+
+        if (!wholeScreen) {
+            for (int r = 0; r < rows && count >= 0; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (!tiles[r * cols + c]) continue;
+                    if (count == maxRegions) { count = -1; break; }
+                    // Se extiende a la derecha y después hacia abajo mientras toda la fila esté marcada
+                    int c1 = c;
+                    while (c1 + 1 < cols && tiles[r * cols + c1 + 1]) c1++;
+                    int r1 = r;
+                    while (r1 + 1 < rows && rowMarked(r1 + 1, c, c1)) r1++;
+                    for (int rr = r; rr <= r1; rr++) Arrays.fill(tiles, rr * cols + c, rr * cols + c1 + 1, false);
+                    int k = count * 4;
+                    out[k] = c * TILE;
+                    out[k + 1] = r * TILE;
+                    out[k + 2] = Math.min((c1 + 1) * TILE, width) - out[k];
+                    out[k + 3] = Math.min((r1 + 1) * TILE, height) - out[k + 1];
+                    count++;
+                    c = c1;
+                }
+            }
+            if (count < 0) wholeScreen = true;
+        }
+
+        double saved = wholeScreen ? 0 : 1 - (double) dirty / Math.max(total, 1);
+        savedFraction = savedFraction * 0.95 + saved * 0.05;
+        Arrays.fill(tiles, false);
+        full = false;
+        return wholeScreen ? -1 : count;
+    }
+
+    // Fracción media de píxeles que se ha evitado repintar (0..1).
+    public double getSavedFraction() { return savedFraction; }
+
+    private boolean rowMarked(int r, int c0, int c1) {
+        for (int c = c0; c <= c1; c++) if (!tiles[r * cols + c]) return false;
+        return true;
+    }
+
+    private void mark(int x0, int y0, int x1, int y1) {
+        if (cols == 0 || rows == 0) return;
+        int c0 = Math.max(0, x0 / TILE), r0 = Math.max(0, y0 / TILE);
+        int c1 = Math.min(cols - 1, (x1 - 1) / TILE), r1 = Math.min(rows - 1, (y1 - 1) / TILE);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) tiles[r * cols + c] = true;
+        }
+    }
+
+    private void resize(int w, int h) {
+        if (w == width && h == height) return;
+        width = w;
+        height = h;
+        cols = (w + TILE - 1) / TILE;
+        rows = (h + TILE - 1) / TILE;
+        tiles = new boolean[cols * rows];
+        full = true;
+        lastCount = -1;
+    }
+}
@@ -3,12 +3,28 @@ package game;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 public class EndPanel extends JPanel implements MouseListener {
     private final String mensaje;
     private final Color colorMensaje;
     private final Runnable onRestart;
     private final String sonido;
+    private final TextLabel mensajeLabel;
+    private final TextLabel boton = new TextLabel(RenderResources.PANEL_TITLE).setText("VOLVER A JUGAR");
+    private final Rectangle playRect = new Rectangle(); // Se recoloca al cambiar de tamaño
+    private int msgY;
+
+    // Clasificación de la configuración jugada, compuesta una sola vez en setLeaderboard()
+    private static final int ROW_HEIGHT = 30;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy").withZone(ZoneId.systemDefault());
+    private TextLabel boardTitle;
+    private TextLabel[] boardRows = new TextLabel[0];
+    private int highlighted = -1; // Fila de la partida recién jugada, o -1
+    private int rowsWidth;
+    private int boardY;
 
     // Constructor del panel final
     public EndPanel(String mensaje, Color colorMensaje, String sonido, Runnable onRestart) {
@@ -19,6 +35,14 @@ public class EndPanel extends JPanel implements MouseListener {
         this.colorMensaje = colorMensaje;
         this.sonido = sonido;
         this.onRestart = onRestart;
+        mensajeLabel = new TextLabel(RenderResources.END_MESSAGE).setText(mensaje);
+        layoutButton(screenSize.width, screenSize.height);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                layoutButton(getWidth(), getHeight());
+            }
+        });
         addMouseListener(this);
         setFocusable(true);
 
@@ -50,37 +74,77 @@ public class EndPanel extends JPanel implements MouseListener {
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        int panelWidth = getWidth();
-        int panelHeight = getHeight();
-
         // Mensaje centrado
-        g2d.setFont(new Font("Arial", Font.BOLD, 48));
         g2d.setColor(colorMensaje);
-        int msgWidth = g2d.getFontMetrics().stringWidth(mensaje);
-        g2d.drawString(mensaje, (panelWidth - msgWidth) / 2, panelHeight / 2);
+        mensajeLabel.drawCentered(g2d, getWidth() / 2, msgY);
 
         // Botón "Volver a jugar"
-        String btnText = "VOLVER A JUGAR";
-        g2d.setFont(new Font("Arial", Font.BOLD, 32));
-        int btnWidth = g2d.getFontMetrics().stringWidth(btnText) + 60;
-        int btnHeight = 60;
-        int btnX = (panelWidth - btnWidth) / 2;
-        int btnY = panelHeight / 2 + 80;
         g2d.setColor(Color.ORANGE);
-        g2d.fillRoundRect(btnX, btnY, btnWidth, btnHeight, 30, 30);
+        g2d.fillRoundRect(playRect.x, playRect.y, playRect.width, playRect.height, 30, 30);
         g2d.setColor(Color.BLACK);
-        g2d.drawRoundRect(btnX, btnY, btnWidth, btnHeight, 30, 30);
-        g2d.drawString(btnText, btnX + 30, btnY + 42);
+        g2d.drawRoundRect(playRect.x, playRect.y, playRect.width, playRect.height, 30, 30);
+        boton.draw(g2d, playRect.x + 30, playRect.y + 42);
 
-        // Guarda el rectángulo del botón para detectar clics
-        playRect = new Rectangle(btnX, btnY, btnWidth, btnHeight);
+        // Clasificación
+        if (boardTitle == null) return;
+        g2d.setColor(Color.WHITE);
+        boardTitle.drawCentered(g2d, getWidth() / 2, boardY);
+        int x = (getWidth() - rowsWidth) / 2;
+        for (int i = 0; i < boardRows.length; i++) {
+            g2d.setColor(i == highlighted ? Color.YELLOW : Color.LIGHT_GRAY);
+            boardRows[i].draw(g2d, x, boardY + (i + 1) * ROW_HEIGHT + 10);
+        }
     }
 
-    private Rectangle playRect;
+    // Muestra la clasificación bajo el botón. Los textos se componen aquí, una vez.
+    // @param board Clasificación de la configuración jugada, o null para no mostrar nada.
+    // @param result Partida recién jugada, que se resalta; null si no hay.
+    public void setLeaderboard(ScoreStore.Leaderboard board, ScoreStore.Entry result) {
+        if (board == null) {
+            boardTitle = null;
+            boardRows = new TextLabel[0];
+        } else {
+            boardTitle = new TextLabel(RenderResources.PANEL_TITLE).setText("Mejores partidas con " + board.balls
+                    + " bolas y " + board.time + " s" + (board.complete ? "" : " (cargando...)"));
+            int rank = result != null ? board.rankOf(result) : -1;
+            boolean outside = result != null && rank < 0;
+            boardRows = new TextLabel[board.top.size() + (outside ? 1 : 0) + 1];
+            int n = 0;
+            for (ScoreStore.Entry e : board.top) {
+                boardRows[n] = new TextLabel(RenderResources.SCORE_ROW).setText(row((n + 1) + ".", e));
+                n++;
+            }
+            if (outside) boardRows[n++] = new TextLabel(RenderResources.SCORE_ROW).setText(row("Tú:", result));
+            highlighted = outside ? n - 1 : rank;
+            boardRows[n] = new TextLabel(RenderResources.LABEL).setText(String.format("Partidas: %d  |  Ganadas: %d%%  |  Puntería media: %d%%",
+                    board.games, board.games == 0 ? 0 : Math.round(100.0 * board.wins / board.games), Math.round(100 * board.accuracy())));
+            rowsWidth = 0;
+            for (TextLabel l : boardRows) rowsWidth = Math.max(rowsWidth, l.width());
+        }
+        layoutButton(getWidth() > 0 ? getWidth() : getPreferredSize().width, getHeight() > 0 ? getHeight() : getPreferredSize().height);
+        repaint();
+    }
+
+    // Una fila de la clasificación: resultado, tiempo restante, aciertos, puntería y fecha.
+    private static String row(String rank, ScoreStore.Entry e) {
+        return String.format("%-4s %-8s %4d s  %5d aciertos  %3d%%  %s", rank, e.won ? "Ganada" : "Perdida",
+                e.timeLeft, e.hits, Math.round(100 * e.accuracy()), DATE.format(Instant.ofEpochMilli(e.date)));
+    }
+
+    // Coloca el mensaje, el botón y la clasificación para el tamaño indicado.
+    // Sin clasificación el mensaje queda en el centro; con ella todo sube para dejarle sitio.
+    private void layoutButton(int panelWidth, int panelHeight) {
+        int boardHeight = boardTitle == null ? 0 : 60 + (boardRows.length + 1) * ROW_HEIGHT;
+        msgY = Math.max(80, panelHeight / 2 - boardHeight / 2);
+        int btnWidth = boton.width() + 60;
+        int btnHeight = 60;
+        playRect.setBounds((panelWidth - btnWidth) / 2, msgY + 80, btnWidth, btnHeight);
+        boardY = playRect.y + btnHeight + 70;
+    }
 
     @Override
     public void mouseClicked(MouseEvent e) {
-        if (playRect != null && playRect.contains(e.getPoint())) {
+        if (playRect.contains(e.getX(), e.getY())) {
             if (onRestart != null) onRestart.run();
         }
     }
@@ -0,0 +1,178 @@
+package game;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.swing.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Instrumentación por frame: tiempo de simulación, tiempo de pintado, retraso de la
+// cola del EDT, latencia de la entrada, pausas de GC y ritmo de asignación de memoria,
+// cada uno en un Histogram.
+// La simulación, el pintado y la entrada los anota quien los mide; el resto se muestrea con
+// tareas periódicas del Scheduler: cada 100 ms encola una tarea vacía en el EDT y mide cuánto tarda en
+// ejecutarse, y cada segundo suma la memoria asignada por todos los hilos.
+// Las pausas llegan por las notificaciones de los recolectores.
+// Se publica por JMX como game:type=FrameMetrics.
+public class FrameMetrics implements FrameMetricsMBean {
+    private static final long PROBE_MILLIS = 100;
+    private static final long ALLOCATION_MILLIS = 1000;
+
+    private final Histogram simulation = new Histogram();
+    private final Histogram paint = new Histogram();
+    private final Histogram edtDelay = new Histogram();
+    private final Histogram input = new Histogram(); // De la pulsación al frame que la refleja
+    private final Histogram gcPause = new Histogram();
+    private final Histogram allocation = new Histogram(); // Bytes por segundo
+
+    private final AtomicBoolean probePending = new AtomicBoolean();
+    private final Map<Long, Long> allocated = new HashMap<>(); // Solo la tarea de muestreo (nunca se solapa consigo misma)
+    private volatile long allocationRate;
+    private volatile long lastAllocationSample;
+
+    private static final class Holder {
+        static final FrameMetrics SHARED = new FrameMetrics().start();
+    }
+
+    // Instancia compartida; la primera llamada arranca el muestreo y la registra en JMX.
+    public static FrameMetrics shared() {
+        return Holder.SHARED;
+    }
+
+    // Anota lo que ha tardado un paso de simulación.
+    public void recordSimulation(long nanos) { simulation.record(nanos); }
+
+    // Anota lo que ha tardado pintar un frame.
+    public void recordPaint(long nanos) { paint.record(nanos); }
+
+    // Anota cuánto ha pasado desde una pulsación hasta terminar de pintar su efecto.
+    public void recordInput(long nanos) { input.record(nanos); }
+
+    public Histogram simulation() { return simulation; }
+    public Histogram paint() { return paint; }
+    public Histogram edtDelay() { return edtDelay; }
+    public Histogram input() { return input; }
+    public Histogram gcPause() { return gcPause; }
+    public Histogram allocation() { return allocation; }
+
+    private FrameMetrics start() {
+        Scheduler.shared().scheduleAtFixedRate(this::probeEdt, PROBE_MILLIS, PROBE_MILLIS, TimeUnit.MILLISECONDS);
+        Scheduler.shared().scheduleAtFixedRate(this::sampleAllocation, 0, ALLOCATION_MILLIS, TimeUnit.MILLISECONDS);
+        listenToGc();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("game:type=FrameMetrics"));
+        } catch (Exception e) {
+            System.err.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+        }
+        return this;
+    }
+
+    // Mide cuánto espera una tarea en la cola del EDT. Si la anterior aún no ha
+    // salido no se encola otra, así una cola atascada no se llena de sondas.
+    private void probeEdt() {
+        if (!probePending.compareAndSet(false, true)) return;
+        long posted = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            edtDelay.record(System.nanoTime() - posted);
+            probePending.set(false);
+        });
+    }
+
+    // Suma la memoria asignada por cada hilo desde la muestra anterior.
+    private void sampleAllocation() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) return;
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        long now = System.nanoTime();
+        long delta = 0;
+        Map<Long, Long> seen = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] < 0) continue;
+            Long before = allocated.get(ids[i]);
+            delta += bytes[i] - (before != null ? before : 0);
+            seen.put(ids[i], bytes[i]);
+        }
+        allocated.clear();
+        allocated.putAll(seen);
+        if (lastAllocationSample != 0) {
+            long rate = (long) (delta * 1e9 / (now - lastAllocationSample));
+            allocationRate = rate;
+            allocation.record(rate);
+        }
+        lastAllocationSample = now;
+    }
+
+    // Se suscribe a las notificaciones de fin de recolección. Las de los recolectores
+    // concurrentes no son pausas de la aplicación, así que se ignoran.
+    private void listenToGc() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gc instanceof NotificationEmitter) || gc.getName().contains("Concurrent")) continue;
+            ((NotificationEmitter) gc).addNotificationListener(this::onGc, null, null);
+        }
+    }
+
+    private void onGc(Notification n, Object handback) {
+        if (!"com.sun.management.gc.notification".equals(n.getType())) return;
+        try {
+            CompositeData info = (CompositeData) ((CompositeData) n.getUserData()).get("gcInfo");
+            gcPause.record(((Long) info.get("duration")) * 1_000_000L);
+        } catch (RuntimeException e) {
+            // Formato desconocido: se ignora
+        }
+    }
+
+    private static double millis(long nanos) { return nanos / 1e6; }
+
+    @Override public double getSimulationP50Millis() { return millis(simulation.percentile(50)); }
+    @Override public double getSimulationP99Millis() { return millis(simulation.percentile(99)); }
+    @Override public double getSimulationMaxMillis() { return millis(simulation.getMax()); }
+    @Override public double getPaintP50Millis() { return millis(paint.percentile(50)); }
+    @Override public double getPaintP99Millis() { return millis(paint.percentile(99)); }
+    @Override public double getPaintMaxMillis() { return millis(paint.getMax()); }
+    @Override public double getEdtDelayP50Millis() { return millis(edtDelay.percentile(50)); }
+    @Override public double getEdtDelayP99Millis() { return millis(edtDelay.percentile(99)); }
+    @Override public double getEdtDelayMaxMillis() { return millis(edtDelay.getMax()); }
+    @Override public double getInputLatencyP50Millis() { return millis(input.percentile(50)); }
+    @Override public double getInputLatencyP99Millis() { return millis(input.percentile(99)); }
+    @Override public double getInputLatencyMaxMillis() { return millis(input.getMax()); }
+    @Override public double getGcPauseP99Millis() { return millis(gcPause.percentile(99)); }
+    @Override public double getGcPauseMaxMillis() { return millis(gcPause.getMax()); }
+    @Override public long getGcPauses() { return gcPause.getCount(); }
+    @Override public double getAllocationMBPerSecond() { return allocationRate / (1024.0 * 1024.0); }
+    @Override public long getFramesPainted() { return paint.getCount(); }
+    @Override public double getSpriteHitRatio() { return SpriteCache.shared().getHitRatio(); }
+    @Override public double getAudioLatencyMillis() { return SoundFX.engine().getLatencyMillis(); }
+    @Override public long getAudioVoicesStolen() { return SoundFX.engine().getStolen(); }
+
+    @Override
+    public double percentile(String metric, double percentile) {
+        switch (metric) {
+            case "simulation": return millis(simulation.percentile(percentile));
+            case "paint": return millis(paint.percentile(percentile));
+            case "edtDelay": return millis(edtDelay.percentile(percentile));
+            case "input": return millis(input.percentile(percentile));
+            case "gcPause": return millis(gcPause.percentile(percentile));
+            case "allocation": return allocation.percentile(percentile) / (1024.0 * 1024.0);
+            default: throw new IllegalArgumentException("Métrica desconocida: " + metric);
+        }
+    }
+
+    @Override
+    public void reset() {
+        simulation.reset();
+        paint.reset();
+        edtDelay.reset();
+        input.reset();
+        gcPause.reset();
+        allocation.reset();
+    }
+}
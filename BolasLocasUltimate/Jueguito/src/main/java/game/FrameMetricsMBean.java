@@ -0,0 +1,40 @@
+package game;
+
+// Métricas del juego publicadas por JMX como game:type=FrameMetrics.
+// Los tiempos van en milisegundos y se acumulan desde el arranque o el último reset().
+public interface FrameMetricsMBean {
+    double getSimulationP50Millis();
+    double getSimulationP99Millis();
+    double getSimulationMaxMillis();
+
+    double getPaintP50Millis();
+    double getPaintP99Millis();
+    double getPaintMaxMillis();
+
+    double getEdtDelayP50Millis();
+    double getEdtDelayP99Millis();
+    double getEdtDelayMaxMillis();
+
+    // Desde la pulsación del ratón hasta pintar el frame que la refleja
+    double getInputLatencyP50Millis();
+    double getInputLatencyP99Millis();
+    double getInputLatencyMaxMillis();
+
+    double getGcPauseP99Millis();
+    double getGcPauseMaxMillis();
+    long getGcPauses();
+
+    double getAllocationMBPerSecond();
+    long getFramesPainted();
+
+    // Métricas que ya llevaban otros subsistemas
+    double getSpriteHitRatio();
+    double getAudioLatencyMillis();
+    long getAudioVoicesStolen();
+
+    // Percentil de cualquier métrica: simulation, paint, edtDelay, input, gcPause o allocation (MB/s).
+    double percentile(String metric, double percentile);
+
+    // Vacía todos los histogramas.
+    void reset();
+}
@@ -0,0 +1,139 @@
+package game;
+
+import java.awt.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Bucle de juego con paso fijo.
+// La simulación avanza siempre en pasos de la misma duración usando un acumulador
+// del tiempo real transcurrido; el dibujado va a su propio ritmo y recibe un factor
+// de interpolación entre el estado anterior y el actual.
+// Si el sistema se retrasa, se recuperan como mucho maxCatchUp pasos por tick y el
+// resto del retraso se descarta para no entrar en espiral.
+public class GameLoop {
+    // Lo que el bucle hace avanzar y dibujar.
+    public interface Simulation {
+        // Avanza la simulación un paso fijo.
+        // @param dt Duración del paso (nanosegundos).
+        void step(long dt);
+
+        // Solicita un frame.
+        // @param alpha Fracción del siguiente paso ya transcurrida (0..1).
+        void render(double alpha);
+
+        // Mientras está pausada no se acumula tiempo.
+        default boolean isPaused() { return false; }
+    }
+
+    private final Simulation sim;
+    private final long stepNanos;
+    private final int maxCatchUp;
+    private ScheduledFuture<?> task; // Tarea en el Scheduler compartido, null si está parado
+    private volatile long last;
+    private volatile long accumulator;
+    private volatile boolean started;
+    private long droppedNanos;
+    private long steps;
+
+    // Constructor.
+    // @param sim Simulación a ejecutar.
+    // @param stepsPerSecond Pasos de simulación por segundo.
+    // @param maxCatchUp Pasos máximos que se recuperan en un mismo tick.
+    public GameLoop(Simulation sim, int stepsPerSecond, int maxCatchUp) {
+        this.sim = sim;
+        this.stepNanos = 1_000_000_000L / stepsPerSecond;
+        this.maxCatchUp = maxCatchUp;
+    }
+
+    // Arranca el bucle al ritmo de refresco de la pantalla.
+    public synchronized void start() {
+        start(displayRefreshRate());
+    }
+
+    // Arranca el bucle como tarea periódica del Scheduler compartido (no crea hilos).
+    // Se puede parar y volver a arrancar; el tiempo parado no se simula.
+    // @param framesPerSecond Frames por segundo que se solicitan.
+    public synchronized void start(int framesPerSecond) {
+        if (task != null) return;
+        resetClock();
+        long period = 1_000_000_000L / framesPerSecond;
+        task = Scheduler.shared().scheduleAtFixedRate(() -> sim.render(advance(System.nanoTime())),
+                0, period, TimeUnit.NANOSECONDS);
+    }
+
+    // Detiene el bucle. Un tick que ya estuviera en marcha termina con normalidad.
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    // Olvida el tiempo transcurrido hasta ahora: el siguiente advance() empieza a contar
+    // desde cero. Para quien dirige el bucle desde su propio hilo tras una pausa.
+    public void resetClock() {
+        started = false;
+        accumulator = 0;
+    }
+
+    // true si el bucle está programado.
+    public synchronized boolean isRunning() { return task != null; }
+
+    // Avanza la simulación hasta el instante indicado.
+    // Se puede llamar desde cualquier hilo que dirija el bucle (siempre el mismo).
+    // @param now Instante actual (System.nanoTime()).
+    // @return Factor de interpolación para dibujar.
+    public double advance(long now) {
+        if (!started) {
+            started = true;
+            last = now;
+        }
+        long elapsed = now - last;
+        last = now;
+        if (sim.isPaused()) {
+            // Sin pasos nuevos se dibuja el estado actual tal cual, sin oscilar hacia el anterior
+            accumulator = 0;
+            return 1;
+        }
+        long acc = accumulator + elapsed;
+        int n = 0;
+        while (acc >= stepNanos && n < maxCatchUp) {
+            sim.step(stepNanos);
+            acc -= stepNanos;
+            n++;
+        }
+        if (acc >= stepNanos) {
+            // Demasiado retraso: se descarta y la simulación se ralentiza en vez de bloquearse
+            droppedNanos += acc - acc % stepNanos;
+            acc %= stepNanos;
+        }
+        steps += n;
+        accumulator = acc;
+        return (double) acc / stepNanos;
+    }
+
+    // Factor de interpolación en este instante, para quien dibuja fuera del hilo del bucle.
+    // En pausa (o con la partida terminada) vale siempre 1.
+    public double interpolation() {
+        if (sim.isPaused()) return 1;
+        double a = (double) (accumulator + System.nanoTime() - last) / stepNanos;
+        return a < 0 ? 0 : (a > 1 ? 1 : a);
+    }
+
+    // Duración de un paso (nanosegundos).
+    public long getStepNanos() { return stepNanos; }
+
+    // Pasos simulados desde el arranque.
+    public long getSteps() { return steps; }
+
+    // Tiempo descartado por exceso de retraso (nanosegundos).
+    public long getDroppedNanos() { return droppedNanos; }
+
+    // Frecuencia de refresco de la pantalla principal, o 60 si no se conoce.
+    public static int displayRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) return 60;
+        int rate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? 60 : rate;
+    }
+}
@@ -0,0 +1,129 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Graba una partida en un fichero binario compacto para poder repetirla con GameReplay.
+// Basta con la configuración inicial (semilla, bolas, tamaño, tiempo, choques) y las
+// entradas, cada una con el paso de simulación en que se aplicó: GameWorld es determinista.
+// Cada segundo simulado se guarda además la huella del estado para detectar desvíos.
+//
+// Formato (little-endian):
+//   cabecera: "BLRC", versión (1 byte), semilla (8), bolas (4), ancho (4), alto (4),
+//             tiempo inicial (4), choques (1), duración del paso en ns (8)
+//   eventos:  tipo (1 byte), pasos desde el evento anterior (varint) y datos:
+//             CLICK x, y (varint zigzag) | RESIZE ancho, alto (varint) | CHECKSUM/END huella (8)
+// Un clic ocupa 4-7 bytes. Se escribe con un ByteBuffer directo sobre un FileChannel.
+public class GameRecorder implements AutoCloseable {
+    static final int MAGIC = 0x43524c42; // "BLRC" en little-endian
+    static final byte VERSION = 1;
+    static final byte CLICK = 1;
+    static final byte RESIZE = 2;
+    static final byte CHECKSUM = 3;
+    static final byte END = 4;
+    static final int CHECKSUM_TICKS = 60; // Una huella por segundo simulado
+
+    static final int MAX_EVENT = 32;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final Path file;
+    private long lastTick;
+    private int width;
+    private int height;
+    private boolean closed;
+
+    // Crea el fichero y escribe la cabecera. Hay que llamarlo antes del primer paso.
+    // @param file Fichero de destino (se sobrescribe).
+    // @param seed Semilla con la que se creó la partida.
+    // @param world Partida recién creada y configurada.
+    // @param stepNanos Duración del paso fijo.
+    public GameRecorder(Path file, long seed, GameWorld world, long stepNanos) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        width = world.getWidth();
+        height = world.getHeight();
+        buffer.putInt(MAGIC).put(VERSION).putLong(seed).putInt(world.balls().size())
+                .putInt(width).putInt(height).putInt(world.getTimeLeft())
+                .put((byte) (world.hasCollisions() ? 1 : 0)).putLong(stepNanos);
+    }
+
+    public Path getFile() { return file; }
+
+    // Anota un cambio de tamaño, si lo hay, antes del paso indicado.
+    public synchronized void resize(long tick, int w, int h) {
+        if (closed || (w == width && h == height)) return;
+        width = w;
+        height = h;
+        event(RESIZE, tick);
+        NetProtocol.putVarint(buffer, w);
+        NetProtocol.putVarint(buffer, h);
+    }
+
+    // Anota un clic aplicado antes del paso indicado.
+    public synchronized void click(long tick, int x, int y) {
+        if (closed) return;
+        event(CLICK, tick);
+        NetProtocol.putZigzag(buffer, x);
+        NetProtocol.putZigzag(buffer, y);
+    }
+
+    // Llamar tras cada paso: guarda la huella cada segundo y cierra al acabar la partida.
+    public synchronized void afterStep(GameWorld world) {
+        if (closed) return;
+        if (world.isGameOver()) {
+            event(END, world.getTick());
+            buffer.putLong(world.checksum());
+            close();
+        } else if (world.getTick() % CHECKSUM_TICKS == 0) {
+            event(CHECKSUM, world.getTick());
+            buffer.putLong(world.checksum());
+        }
+    }
+
+    // Vuelca lo pendiente y cierra el fichero. Una grabación sin END se puede repetir
+    // igualmente hasta el último evento.
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("No se pudo cerrar la grabación " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void event(byte type, long tick) {
+        if (buffer.remaining() < MAX_EVENT) {
+            try {
+                flush();
+            } catch (IOException e) {
+                System.err.println("Error grabando la partida en " + file + ": " + e.getMessage());
+                closed = true;
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Ya se ha avisado
+                }
+                buffer.clear();
+                return;
+            }
+        }
+        buffer.put(type);
+        NetProtocol.putVarint(buffer, tick - lastTick);
+        lastTick = tick;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,178 @@
+package game;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Repite una partida grabada con GameRecorder, sin ventana y tan rápido como se pueda.
+// Reconstruye el GameWorld con la misma semilla y configuración, aplica cada entrada
+// en el paso en que se grabó y compara las huellas del estado: la primera que no
+// coincide indica en qué paso se ha desviado la repetición.
+//
+// Uso: java -cp GameProject.jar game.GameReplay partida.blr [...]
+public class GameReplay {
+    // Resultado de una repetición.
+    public static final class Result {
+        public long ticks;          // Pasos simulados
+        public long nanos;          // Tiempo real empleado
+        public long stepNanos;      // Duración de un paso en la partida original
+        public int clicks;
+        public int checksums;       // Huellas comprobadas
+        public long divergedAt = -1; // Paso de la primera huella distinta, o -1
+        public boolean complete;    // La grabación llegaba hasta el final de la partida
+        public boolean won;
+
+        // Veces más rápido que el tiempo real.
+        public double speedup() {
+            return nanos == 0 ? 0 : (double) ticks * stepNanos / nanos;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+    private GameReplay(FileChannel channel) {
+        this.channel = channel;
+        buffer.flip(); // Vacío hasta la primera lectura
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length == 0) {
+            System.err.println("Uso: java game.GameReplay partida.blr [...]");
+            System.exit(2);
+        }
+        boolean ok = true;
+        for (String a : args) {
+            Result r = run(Paths.get(a));
+            System.out.printf("%s: %d pasos (%.1f s de juego) en %.1f ms, %.0fx tiempo real, %d clics%n",
+                    a, r.ticks, r.ticks * r.stepNanos / 1e9, r.nanos / 1e6, r.speedup(), r.clicks);
+            if (r.divergedAt >= 0) {
+                System.out.printf("  DESVÍO en el paso %d (%d huellas correctas antes)%n", r.divergedAt, r.checksums);
+                ok = false;
+            } else {
+                System.out.printf("  %d huellas correctas, %s%n", r.checksums,
+                        r.complete ? (r.won ? "victoria" : "derrota") : "grabación sin terminar");
+            }
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Repite una grabación completa.
+    // @param file Fichero .blr.
+    public static Result run(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new GameReplay(ch).replay();
+        }
+    }
+
+    private Result replay() throws IOException {
+        need(38);
+        if (buffer.getInt() != GameRecorder.MAGIC) throw new IOException("No es una grabación de partida");
+        byte version = buffer.get();
+        if (version != GameRecorder.VERSION) throw new IOException("Versión de grabación no soportada: " + version);
+        long seed = buffer.getLong();
+        int balls = buffer.getInt();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int time = buffer.getInt();
+        boolean collisions = buffer.get() != 0;
+        long stepNanos = buffer.getLong();
+
+        GameWorld world = new GameWorld(balls, width, height, seed);
+        world.setInitialTime(time);
+        world.setCollisions(collisions);
+
+        Result r = new Result();
+        r.stepNanos = stepNanos;
+        long t0 = System.nanoTime();
+        long tick = 0;
+        while (more()) {
+            // Un evento entero cabe en MAX_EVENT bytes, así que se decodifica directamente del buffer
+            fillTo(GameRecorder.MAX_EVENT);
+            byte type = buffer.get();
+            tick += getVarint();
+            while (world.getTick() < tick) world.step(stepNanos);
+            if (type == GameRecorder.CLICK) {
+                int x = (int) getZigzag();
+                world.click(x, (int) getZigzag());
+                r.clicks++;
+            } else if (type == GameRecorder.RESIZE) {
+                int w = (int) getVarint();
+                world.resize(w, (int) getVarint());
+            } else if (type == GameRecorder.CHECKSUM || type == GameRecorder.END) {
+                need(8);
+                if (buffer.getLong() != world.checksum()) {
+                    r.divergedAt = tick;
+                    break;
+                }
+                r.checksums++;
+                if (type == GameRecorder.END) {
+                    r.complete = true;
+                    break;
+                }
+            } else {
+                throw new IOException("Evento desconocido " + type + " en el paso " + tick);
+            }
+        }
+        r.nanos = System.nanoTime() - t0;
+        r.ticks = world.getTick();
+        r.won = world.isWon();
+        return r;
+    }
+
+    // Enteros con la misma codificación que NetProtocol; un evento a medias al final del
+    // fichero es una grabación cortada.
+    private long getVarint() throws IOException {
+        try {
+            return NetProtocol.getVarint(buffer);
+        } catch (RuntimeException e) {
+            throw malformed(e);
+        }
+    }
+
+    private long getZigzag() throws IOException {
+        try {
+            return NetProtocol.getZigzag(buffer);
+        } catch (RuntimeException e) {
+            throw malformed(e);
+        }
+    }
+
+    private static IOException malformed(RuntimeException e) {
+        if (e instanceof BufferUnderflowException) return new EOFException("Grabación cortada");
+        return new IOException(e.getMessage(), e);
+    }
+
+    // Lee hasta tener n bytes en el buffer o llegar al final del fichero.
+    private void fillTo(int n) throws IOException {
+        while (buffer.remaining() < n && fill() > 0) {
+            // Sigue leyendo
+        }
+    }
+
+    // true si queda algún evento por leer.
+    private boolean more() throws IOException {
+        return buffer.hasRemaining() || fill() > 0;
+    }
+
+    // Se asegura de que haya n bytes en el buffer.
+    private void need(int n) throws IOException {
+        while (buffer.remaining() < n) {
+            if (fill() < 0) throw new EOFException("Grabación cortada");
+        }
+    }
+
+    private int fill() throws IOException {
+        buffer.compact();
+        int n = channel.read(buffer);
+        buffer.flip();
+        return n;
+    }
+}
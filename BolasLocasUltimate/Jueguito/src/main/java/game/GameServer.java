@@ -0,0 +1,523 @@
+package game;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+// Servidor de partidas en red, autoritativo: las bolas, los clics y el reloj solo se
+// simulan aquí, con el mismo GameWorld que el juego local, y los clientes (NetClient)
+// se limitan a enviar clics y dibujar lo que reciben.
+// Los jugadores se emparejan por orden de llegada en partidas de config.players; la
+// partida empieza cuando está completa y gana quien más bolas haya acertado.
+// Todo corre en un único hilo con un Selector (sockets no bloqueantes): entre paso y
+// paso se atienden conexiones, lecturas y escrituras pendientes, y cada paso hace
+// avanzar todas las partidas. Cada SNAPSHOT_TICKS pasos se codifica una instantánea por
+// partida (SnapshotCodec) y se envían los mismos bytes a todos sus jugadores. Un cliente
+// que no lee se queda sin instantáneas hasta que vacía lo pendiente y entonces recibe
+// una completa, así que nunca retrasa a los demás ni hace crecer la memoria.
+// Cada REPORT_NANOS se escribe una línea con partidas, clientes y bytes por paso y cliente.
+//
+// Uso: java -cp GameProject.jar game.GameServer [puerto]
+// -Dgame.net.players, -Dgame.net.balls, -Dgame.net.time, -Dgame.net.collisions,
+// -Dgame.net.width y -Dgame.net.height configuran las partidas.
+public class GameServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 4545;
+    static final int TICKS_PER_SECOND = 60;
+    static final long STEP = 1_000_000_000L / TICKS_PER_SECOND;
+    static final int SNAPSHOT_TICKS = 3;          // 20 instantáneas por segundo
+    private static final int MAX_CATCH_UP = 5;
+    private static final int MAX_PENDING = 256 * 1024; // Bytes por enviar a partir de los que se saltan instantáneas
+    private static final long REPORT_NANOS = 5_000_000_000L;
+
+    // Configuración de las partidas.
+    public static final class Config {
+        public int players = 2;
+        public int balls = 10;
+        public int time = 30;
+        public boolean collisions;
+        public int width = 1920;
+        public int height = 1080;
+
+        public static Config fromSystemProperties() {
+            Config c = new Config();
+            c.players = Math.max(1, Integer.getInteger("game.net.players", c.players));
+            c.balls = Math.max(1, Integer.getInteger("game.net.balls", c.balls));
+            c.time = Integer.getInteger("game.net.time", c.time);
+            c.collisions = Boolean.getBoolean("game.net.collisions");
+            c.width = Integer.getInteger("game.net.width", c.width);
+            c.height = Integer.getInteger("game.net.height", c.height);
+            return c;
+        }
+    }
+
+    private final Config config;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<Session> sessions = new ArrayList<>();
+    private Session waiting; // Partida que aún espera jugadores
+    private Thread thread;
+    private volatile boolean running;
+    private long ticks;
+
+    // Instantánea en curso: cuerpo y mensaje con su longitud, compartido por los jugadores
+    private ByteBuffer body = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer frame = ByteBuffer.allocate(4096 + 5).order(ByteOrder.LITTLE_ENDIAN);
+
+    // Métricas del último intervalo
+    private long intervalBytes;
+    private long clientTicks;      // Suma, paso a paso, de los clientes conectados
+    private long intervalNanos;
+    private long intervalTicks;
+    private volatile double bytesPerTick; // Bytes enviados por paso y cliente
+    private volatile double tickMillis;   // Coste medio de un paso de todas las partidas
+    private volatile int sessionCount;
+    private volatile int clientCount;
+
+    // Abre el puerto. El servidor no atiende a nadie hasta start().
+    // @param port Puerto TCP (0 elige uno libre, ver getPort).
+    // @param config Configuración de las partidas.
+    public GameServer(int port, Config config) throws IOException {
+        this.config = config;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 256);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Config c = Config.fromSystemProperties();
+        GameServer s = new GameServer(port, c);
+        System.out.printf("Servidor en el puerto %d: partidas de %d jugadores, %d bolas, %d s%n",
+                s.getPort(), c.players, c.balls, c.time);
+        s.start();
+        s.thread.join();
+    }
+
+    // Arranca el hilo del servidor.
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = Scheduler.shared().newThread("game-server", Thread.NORM_PRIORITY, this::run);
+        thread.start();
+    }
+
+    // Para el servidor y cierra todas las conexiones.
+    @Override
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = thread;
+        }
+        selector.wakeup();
+        if (t != null && t != Thread.currentThread()) {
+            try {
+                t.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (t == null) closeAll();
+    }
+
+    public int getPort() { return server.socket().getLocalPort(); }
+    // Bytes enviados por paso y cliente en el último intervalo de REPORT_NANOS.
+    public double getBytesPerTick() { return bytesPerTick; }
+    public double getTickMillis() { return tickMillis; }
+    public int getSessions() { return sessionCount; }
+    public int getClients() { return clientCount; }
+
+    private void run() {
+        long next = System.nanoTime();
+        long reportAt = next + REPORT_NANOS;
+        try {
+            while (running) {
+                long wait = (next - System.nanoTime()) / 1_000_000;
+                if (wait > 0) selector.select(wait);
+                else selector.selectNow();
+                handleKeys();
+                long now = System.nanoTime();
+                for (int i = 0; i < MAX_CATCH_UP && now >= next; i++) {
+                    tick();
+                    next += STEP;
+                }
+                if (now >= next) next = now + STEP; // Demasiado atrasado: se descarta el tiempo perdido
+                if (now >= reportAt) {
+                    report();
+                    reportAt = now + REPORT_NANOS;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error en el servidor: " + e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void handleKeys() {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (!key.isValid()) continue;
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Connection c = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) read(c);
+                if (key.isValid() && key.isWritable()) flush(c);
+            } catch (IOException | RuntimeException e) {
+                drop(c); // Conexión rota o mensaje mal formado
+            }
+        }
+    }
+
+    private void accept() {
+        SocketChannel ch;
+        try {
+            while ((ch = server.accept()) != null) {
+                ch.configureBlocking(false);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection c = new Connection(ch);
+                c.key = ch.register(selector, SelectionKey.OP_READ, c);
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo aceptar una conexión: " + e.getMessage());
+        }
+    }
+
+    // Lee lo que haya llegado y procesa los mensajes completos.
+    private void read(Connection c) throws IOException {
+        if (c.channel.read(c.in) < 0) {
+            drop(c);
+            return;
+        }
+        c.in.flip();
+        int len;
+        while ((len = NetProtocol.frame(c.in)) >= 0) {
+            if (len == 0 || len > NetProtocol.MAX_CLIENT_FRAME) throw new IOException("Mensaje no válido");
+            int end = c.in.position() + len;
+            byte type = c.in.get();
+            if (type == NetProtocol.HELLO) {
+                if (c.session != null || c.in.getInt() != NetProtocol.MAGIC || c.in.get() != NetProtocol.VERSION) {
+                    throw new IOException("Saludo no válido");
+                }
+                join(c);
+            } else if (type == NetProtocol.CLICK && c.session != null) {
+                int x = (int) NetProtocol.getZigzag(c.in);
+                int y = (int) NetProtocol.getZigzag(c.in);
+                c.session.clicks.add(new int[] { c.player, x, y });
+            }
+            c.in.position(end);
+        }
+        c.in.compact();
+        if (!c.in.hasRemaining()) throw new IOException("Mensaje demasiado largo");
+    }
+
+    // Mete al jugador en la partida que espera, o en una nueva.
+    private void join(Connection c) {
+        if (waiting == null) {
+            waiting = new Session(config, System.nanoTime() ^ sessions.size());
+            sessions.add(waiting);
+        }
+        Session s = waiting;
+        int slot = 0;
+        while (s.players[slot] != null) slot++;
+        s.players[slot] = c;
+        s.connected++;
+        c.session = s;
+        c.player = slot;
+        c.needsKeyframe = true;
+
+        body.clear();
+        body.put(NetProtocol.WELCOME).put((byte) slot).put((byte) config.players);
+        NetProtocol.putVarint(body, config.width);
+        NetProtocol.putVarint(body, config.height);
+        NetProtocol.putVarint(body, TICKS_PER_SECOND);
+        NetProtocol.putVarint(body, SNAPSHOT_TICKS);
+        body.flip();
+        frame.clear();
+        NetProtocol.putFrame(frame, body);
+        frame.flip();
+        send(c, frame);
+
+        if (s.connected == config.players) {
+            s.started = true;
+            waiting = null;
+        }
+    }
+
+    // Un paso de todas las partidas, y las instantáneas si toca.
+    private void tick() {
+        long t0 = System.nanoTime();
+        ticks++;
+        boolean snapshot = ticks % SNAPSHOT_TICKS == 0;
+        int clients = 0;
+        for (int i = sessions.size() - 1; i >= 0; i--) {
+            Session s = sessions.get(i);
+            if (s.connected == 0) {
+                sessions.remove(i);
+                if (waiting == s) waiting = null;
+                continue;
+            }
+            clients += s.connected;
+            s.ticks++;
+            if (s.finished) continue;
+            try {
+                boolean over = s.step();
+                if (snapshot || over) broadcast(s);
+                if (over) {
+                    s.finished = true;
+                    for (Connection c : s.players) {
+                        if (c != null) closeWhenFlushed(c);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Un fallo en una partida solo se lleva por delante a esa partida
+                System.err.println("Partida descartada por un error: " + e);
+                e.printStackTrace();
+                for (Connection c : s.players) {
+                    if (c != null) drop(c);
+                }
+                sessions.remove(i);
+                if (waiting == s) waiting = null;
+            }
+        }
+        clientTicks += clients;
+        intervalTicks++;
+        intervalNanos += System.nanoTime() - t0;
+        sessionCount = sessions.size();
+        clientCount = clients;
+    }
+
+    // Envía la instantánea de la partida a sus jugadores.
+    private void broadcast(Session s) {
+        ensureRoom(s.world.balls().size());
+        body.clear();
+        s.writeHeader(body);
+        boolean keyframe = s.codec.encode(s.world.balls(), body);
+        body.flip();
+        frame.clear();
+        NetProtocol.putFrame(frame, body);
+        frame.flip();
+        boolean someoneNeedsKeyframe = false;
+        for (Connection c : s.players) {
+            if (c == null) continue;
+            if (keyframe) c.needsKeyframe = false;
+            if (c.needsKeyframe) {
+                someoneNeedsKeyframe = true;
+            } else if (c.pending > MAX_PENDING) {
+                c.needsKeyframe = true; // No da abasto: se pondrá al día con una completa
+            } else {
+                send(c, frame.duplicate());
+            }
+        }
+        if (!someoneNeedsKeyframe) return;
+        body.clear();
+        s.writeHeader(body);
+        s.codec.writeKeyframe(body);
+        body.flip();
+        frame.clear();
+        NetProtocol.putFrame(frame, body);
+        frame.flip();
+        for (Connection c : s.players) {
+            if (c == null || !c.needsKeyframe || c.pending > 0) continue; // Primero que vacíe lo pendiente
+            c.needsKeyframe = false;
+            send(c, frame.duplicate());
+        }
+    }
+
+    private void ensureRoom(int balls) {
+        int need = 64 + config.players * 10 + SnapshotCodec.maxBytes(balls);
+        if (body.capacity() >= need) return;
+        body = ByteBuffer.allocate(need * 2).order(ByteOrder.LITTLE_ENDIAN);
+        frame = ByteBuffer.allocate(need * 2 + 5).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Escribe lo que admita el socket y guarda una copia del resto.
+    private void send(Connection c, ByteBuffer data) {
+        int n = data.remaining();
+        intervalBytes += n;
+        c.bytes += n;
+        try {
+            if (c.pending == 0) c.channel.write(data);
+        } catch (IOException e) {
+            drop(c);
+            return;
+        }
+        if (!data.hasRemaining()) return;
+        ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+        copy.put(data).flip();
+        c.out.add(copy);
+        c.pending += copy.remaining();
+        if (c.key.isValid()) c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    // Escribe lo pendiente cuando el socket vuelve a admitir datos.
+    private void flush(Connection c) throws IOException {
+        ByteBuffer b;
+        while ((b = c.out.peek()) != null) {
+            int n = c.channel.write(b);
+            c.pending -= n;
+            if (b.hasRemaining()) return;
+            c.out.poll();
+        }
+        if (c.closing) {
+            drop(c);
+            return;
+        }
+        c.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void closeWhenFlushed(Connection c) {
+        c.closing = true;
+        if (c.pending == 0) drop(c);
+    }
+
+    private void drop(Connection c) {
+        if (c.dropped) return;
+        c.dropped = true;
+        c.key.cancel();
+        try {
+            c.channel.close();
+        } catch (IOException ignored) {
+            // Ya está cerrada
+        }
+        Session s = c.session;
+        if (s != null) {
+            s.players[c.player] = null;
+            s.connected--;
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey k : selector.keys()) {
+            if (k.attachment() instanceof Connection) drop((Connection) k.attachment());
+        }
+        try {
+            selector.close();
+            server.close();
+        } catch (IOException ignored) {
+            // Se está cerrando
+        }
+    }
+
+    private void report() {
+        tickMillis = intervalTicks == 0 ? 0 : intervalNanos / 1e6 / intervalTicks;
+        bytesPerTick = clientTicks == 0 ? 0 : (double) intervalBytes / clientTicks;
+        System.out.printf(Locale.ROOT, "Servidor: %d partidas, %d clientes, %.1f B/paso por cliente (%.1f kB/s), paso %.3f ms%n",
+                sessionCount, clientCount, bytesPerTick, bytesPerTick * TICKS_PER_SECOND / 1024, tickMillis);
+        intervalBytes = 0;
+        clientTicks = 0;
+        intervalNanos = 0;
+        intervalTicks = 0;
+    }
+
+    // Un cliente conectado.
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        SelectionKey key;
+        Session session;
+        int player;
+        int pending;            // Bytes en out
+        long bytes;             // Bytes enviados en total
+        boolean needsKeyframe;  // Aún no tiene la referencia de SnapshotCodec
+        boolean closing;        // Se cierra en cuanto envíe lo pendiente
+        boolean dropped;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    // Una partida: su GameWorld, sus jugadores y la referencia de las instantáneas.
+    private static final class Session implements GameWorld.Listener {
+        final GameWorld world;
+        final SnapshotCodec codec = new SnapshotCodec();
+        final Connection[] players;
+        final int[] hits;
+        final int[] misses;
+        final ArrayDeque<int[]> clicks = new ArrayDeque<>(); // jugador, x, y
+        int connected;
+        boolean started;
+        boolean finished;       // Ya se ha enviado la instantánea final
+        long ticks;             // Pasos del servidor desde que se creó (el reloj de los clientes)
+        private int clicking;   // Jugador cuyo clic se está aplicando
+
+        Session(Config config, long seed) {
+            world = new GameWorld(config.balls, config.width, config.height, seed);
+            world.setInitialTime(config.time);
+            world.setCollisions(config.collisions);
+            world.setListener(this);
+            players = new Connection[config.players];
+            hits = new int[config.players];
+            misses = new int[config.players];
+        }
+
+        // Aplica los clics recibidos y avanza un paso si la partida ha empezado.
+        // @return true si la partida acaba de terminar.
+        boolean step() {
+            if (!started) {
+                clicks.clear();
+                return false;
+            }
+            int[] c;
+            while ((c = clicks.poll()) != null && !world.isGameOver()) {
+                clicking = c[0];
+                world.click(c[1], c[2]);
+            }
+            if (!world.isGameOver()) world.step(STEP);
+            return world.isGameOver();
+        }
+
+        // Ganador por aciertos, o -1 si hay empate.
+        int winner() {
+            int best = -1;
+            boolean tie = false;
+            for (int p = 0; p < hits.length; p++) {
+                if (best < 0 || hits[p] > hits[best]) {
+                    best = p;
+                    tie = false;
+                } else if (hits[p] == hits[best]) {
+                    tie = true;
+                }
+            }
+            return tie ? -1 : best;
+        }
+
+        void writeHeader(ByteBuffer out) {
+            out.put(NetProtocol.SNAPSHOT);
+            NetProtocol.putVarint(out, ticks);
+            NetProtocol.putVarint(out, Math.max(0, world.getTimeLeft()));
+            boolean over = world.isGameOver();
+            out.put((byte) ((started ? NetProtocol.STARTED : 0) | (over ? NetProtocol.OVER : 0)
+                    | (world.isWon() ? NetProtocol.WON : 0)));
+            out.put((byte) (over ? winner() + 1 : 0));
+            for (int p = 0; p < hits.length; p++) {
+                NetProtocol.putVarint(out, hits[p]);
+                NetProtocol.putVarint(out, misses[p]);
+            }
+        }
+
+        @Override public void onHit() { hits[clicking]++; }
+        @Override public void onMiss() { misses[clicking]++; }
+    }
+}
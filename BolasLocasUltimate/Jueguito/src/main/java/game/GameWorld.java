@@ -0,0 +1,202 @@
+package game;
+
+import java.util.Random;
+
+// Lógica de una partida sin nada de Swing: bolas, física, reloj y reglas de los clics.
+// Funciona igual con pantalla que en modo headless (java.awt.headless=true), así que
+// Surface la usa para jugar y HeadlessRunner para simular muchas partidas a la vez.
+// Con la misma semilla, los mismos clics y los mismos cambios de tamaño en los mismos
+// pasos, la partida evoluciona exactamente igual (ver GameRecorder y GameReplay).
+// Admite cualquier número de bolas: por encima de DENSITY_BALLS se encogen según la
+// densidad (modo masivo), y con 100.000 miden unos pocos píxeles.
+// No es segura entre hilos: la usa solo el hilo que la hace avanzar.
+public class GameWorld {
+    // Avisos de la partida, por ejemplo para poner sonidos o cambiar de pantalla.
+    // Se llaman desde el hilo de la simulación.
+    public interface Listener {
+        default void onHit() {}
+        default void onMiss() {}
+        // @param won true si se han eliminado todas las bolas, false si se acabó el tiempo.
+        default void onGameOver(boolean won) {}
+    }
+
+    private static final Listener NONE = new Listener() {};
+    // Con más bolas que DENSITY_BALLS en una pantalla de REFERENCE_AREA se encogen para
+    // cubrir más o menos la misma superficie; por debajo conservan su tamaño de siempre.
+    static final int DENSITY_BALLS = 50;
+    static final double REFERENCE_AREA = 1920.0 * 1080.0;
+    static final int MIN_SIZE = 2;
+
+    private final BallStore balls;
+    private final SpatialGrid grid = new SpatialGrid();
+    private final Random random;
+    private final double sizeScale; // Factor de tamaño según la densidad inicial (1 = normal)
+    private PhysicsStep move = PhysicsStep.WALLS;
+    private PhysicsStep[] physics = { move };
+    private CollisionStep collisions; // null si los choques están desactivados
+    private Listener listener = NONE;
+    private int width;
+    private int height;
+    private double physicsMillis; // Coste medio de la física por paso
+    private long tick; // Pasos simulados desde el inicio de la partida
+
+    // --- Reloj y mecánica de tiempo ---
+    private int timeLeft = 30; // Tiempo inicial en segundos
+    private final int timeBonus = 7; // Tiempo que se suma al acertar
+    private final int timePenalty = 5; // Tiempo que se resta al fallar
+    private long secondNanos; // Tiempo simulado desde el último segundo descontado
+    private boolean gameOver;
+    private boolean won;
+    private int hits;   // Clics acertados y fallados (no cuentan en checksum())
+    private int misses;
+
+    // Constructor. Crea las bolas repartidas por el área de juego.
+    // @param numBalls Número inicial de bolas.
+    // @param width Ancho del área de juego.
+    // @param height Alto del área de juego.
+    // @param seed Semilla de las bolas aleatorias.
+    public GameWorld(int numBalls, int width, int height, long seed) {
+        this.width = width;
+        this.height = height;
+        random = new Random(seed);
+        sizeScale = sizeScale(numBalls, width, height);
+        balls = new BallStore(numBalls);
+        for (int i = 0; i < numBalls; i++) {
+            addRandomBall(false);
+        }
+    }
+
+    // Establece quién recibe los avisos de la partida.
+    public void setListener(Listener listener) {
+        this.listener = listener != null ? listener : NONE;
+    }
+
+    // Establece el tiempo inicial para el juego.
+    // @param t Tiempo en segundos.
+    public void setInitialTime(int t) {
+        this.timeLeft = t;
+    }
+
+    // Cambia el paso de movimiento (por defecto el secuencial, Ball.move).
+    public void setMoveStep(PhysicsStep move) {
+        this.move = move;
+        setCollisions(collisions != null);
+    }
+
+    // Activa o desactiva los choques entre bolas.
+    // @param enabled true para que las bolas choquen entre sí.
+    public void setCollisions(boolean enabled) {
+        if (enabled) {
+            if (collisions == null) collisions = new CollisionStep();
+            physics = new PhysicsStep[] { move, collisions };
+        } else {
+            collisions = null;
+            physics = new PhysicsStep[] { move };
+        }
+    }
+
+    // Cambia el tamaño del área de juego (la ventana se ha redimensionado).
+    public void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    // Paso fijo de simulación: física y temporizador.
+    // @param dt Duración del paso (nanosegundos).
+    public void step(long dt) {
+        long t0 = System.nanoTime();
+        balls.savePrevious();
+        for (PhysicsStep step : physics) step.apply(balls, dt, width, height);
+        physicsMillis = physicsMillis * 0.9 + (System.nanoTime() - t0) / 1e6 * 0.1;
+        grid.update(balls, width, height);
+        updateTimer(dt);
+        tick++;
+    }
+
+    // Gestiona la mecánica de clics:
+    // - Si aciertas la bola más al frente, la elimina y suma tiempo.
+    // - Si fallas, añade una bola al fondo y resta tiempo.
+    // Con la partida terminada los clics se ignoran.
+    public void click(int mx, int my) {
+        if (gameOver || timeLeft <= 0) return;
+        int hit = grid.topmostAt(balls, mx, my);
+        if (hit >= 0 && balls.isFront(hit)) {
+            balls.removeFront();
+            hits++;
+            timeLeft += timeBonus;
+            listener.onHit();
+            // Comprobar victoria
+            if (balls.isEmpty()) end(true);
+        } else {
+            misses++;
+            addRandomBall(true);
+            timeLeft -= timePenalty;
+            if (timeLeft < 0) timeLeft = 0;
+            if (timeLeft == 0) end(false);
+            listener.onMiss();
+        }
+    }
+
+    // Huella del estado de la partida, para comprobar que una repetición no se desvía.
+    public long checksum() {
+        long h = balls.checksum();
+        h = h * 31 + tick;
+        h = h * 31 + timeLeft;
+        h = h * 31 + secondNanos;
+        return h * 31 + (gameOver ? 1 : 0);
+    }
+
+    public BallStore balls() { return balls; }
+    public long getTick() { return tick; }
+    public int getTimeLeft() { return timeLeft; }
+    public boolean isGameOver() { return gameOver; }
+    public boolean isWon() { return won; }
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public double getPhysicsMillis() { return physicsMillis; }
+    public boolean hasCollisions() { return collisions != null; }
+    public int getContacts() { return collisions != null ? collisions.getLastContacts() : 0; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public double getSizeScale() { return sizeScale; }
+
+    // Factor por el que se multiplica el tamaño de las bolas para que numBalls bolas
+    // en un área de width x height cubran lo mismo que DENSITY_BALLS en REFERENCE_AREA.
+    static double sizeScale(int numBalls, int width, int height) {
+        if (numBalls <= DENSITY_BALLS) return 1;
+        double area = Math.max(1.0, (double) width * height);
+        return Math.min(1, Math.sqrt((double) DENSITY_BALLS / numBalls * area / REFERENCE_AREA));
+    }
+
+    // Añade una bola con propiedades aleatorias.
+    // @param back true para colocarla al fondo, false para colocarla al frente.
+    private void addRandomBall(boolean back) {
+        int size = random.nextInt(300) + 150; // Tamaño entre 150 y 450
+        if (sizeScale < 1) size = Math.max(MIN_SIZE, (int) Math.round(size * sizeScale));
+        double x = random.nextDouble() * (width - size);
+        double y = random.nextDouble() * (height - size);
+        double direction = Math.toRadians(random.nextInt(360));
+        double speed = random.nextDouble() * 200 + 100;
+        int color = BallStore.argb(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+        if (back) balls.addBack(x, y, size, direction, speed, color);
+        else balls.add(x, y, size, direction, speed, color);
+    }
+
+    // Descuenta un segundo por cada segundo de tiempo simulado.
+    // Si el tiempo llega a cero, la partida se pierde.
+    private void updateTimer(long dt) {
+        secondNanos += dt;
+        if (!gameOver && timeLeft > 0 && secondNanos >= 1_000_000_000L) {
+            timeLeft--;
+            secondNanos -= 1_000_000_000L;
+            if (timeLeft <= 0) end(false);
+        }
+    }
+
+    private void end(boolean victory) {
+        if (gameOver) return;
+        gameOver = true;
+        won = victory;
+        listener.onGameOver(victory);
+    }
+}
@@ -0,0 +1,110 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Simula muchas partidas independientes a la vez, sin ventana y tan rápido como se pueda,
+// para probar bots y medir carga. Cada partida es un GameWorld que avanza en un único
+// hilo del pool (una partida por tarea, sin estado compartido), así que escala con los núcleos.
+// Un bot sencillo hace clic cada cierto tiempo: casi siempre en la bola de delante
+// y a veces en un punto al azar.
+//
+// Uso: java -cp GameProject.jar game.HeadlessRunner [partidas] [bolas] [segundos] [hilos]
+public class HeadlessRunner {
+    private static final long STEP = 1_000_000_000L / 60; // Paso fijo, igual que en el juego
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+
+    // Resultado de una partida simulada.
+    static final class Result {
+        long steps;
+        long nanos;
+        boolean won;
+        boolean over;
+        int ballsLeft;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int balls = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 120;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d partidas de %d bolas, hasta %d s simulados, %d hilos%n", games, balls, seconds, threads);
+        AtomicInteger n = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "headless-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        long t0 = System.nanoTime();
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            long seed = i;
+            futures.add(pool.submit(() -> play(balls, seconds, seed)));
+        }
+        long steps = 0;
+        long busy = 0;
+        int won = 0;
+        int lost = 0;
+        long leftUnfinished = 0; // Bolas que quedaban en las partidas sin terminar
+        for (Future<Result> f : futures) {
+            Result r = f.get();
+            steps += r.steps;
+            busy += r.nanos;
+            if (r.won) won++;
+            else if (r.over) lost++;
+            else leftUnfinished += r.ballsLeft;
+        }
+        double wall = (System.nanoTime() - t0) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("Pasos simulados: %d en %.2f s%n", steps, wall);
+        System.out.printf("FPS simulados: %.0f en total, %.0f por partida (%.0fx tiempo real)%n",
+                steps / wall, steps / (busy / 1e9), steps / (busy / 1e9) / 60);
+        int unfinished = games - won - lost;
+        System.out.printf("Victorias: %d, derrotas: %d, sin terminar: %d", won, lost, unfinished);
+        if (unfinished > 0) System.out.printf(" (%.1f bolas restantes de media)", (double) leftUnfinished / unfinished);
+        System.out.println();
+    }
+
+    // Juega una partida completa en el hilo actual.
+    // @param balls Bolas iniciales.
+    // @param seconds Tiempo simulado máximo.
+    // @param seed Semilla de la partida y del bot.
+    static Result play(int balls, int seconds, long seed) {
+        GameWorld world = new GameWorld(balls, WIDTH, HEIGHT, seed);
+        Random bot = new Random(~seed);
+        Result r = new Result();
+        long maxSteps = seconds * 60L;
+        long t0 = System.nanoTime();
+        while (!world.isGameOver() && r.steps < maxSteps) {
+            if (bot.nextInt(30) == 0) click(world, bot); // Un clic cada medio segundo de media
+            world.step(STEP);
+            r.steps++;
+        }
+        r.nanos = System.nanoTime() - t0;
+        r.won = world.isWon();
+        r.over = world.isGameOver();
+        r.ballsLeft = world.balls().size();
+        return r;
+    }
+
+    // Clic del bot: en el centro de la bola de delante 9 de cada 10 veces, y si no al azar.
+    private static void click(GameWorld world, Random bot) {
+        BallStore b = world.balls();
+        int top = b.front();
+        if (top >= 0 && bot.nextInt(10) != 0) {
+            double half = b.getSize(top) / 2;
+            world.click((int) (b.getX(top) + half), (int) (b.getY(top) + half));
+        } else {
+            world.click(bot.nextInt(world.getWidth()), bot.nextInt(world.getHeight()));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de valores enteros con cubos logarítmico-lineales, al estilo de HdrHistogram.
+// Cada potencia de dos se divide en 16 cubos, así que cualquier percentil sale con un
+// error relativo menor del 7% (3% de media) sin guardar las muestras. El número de
+// cubos es fijo y record() no reserva memoria ni bloquea, así que se puede llamar
+// desde cualquier hilo en cada frame.
+public class Histogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;          // Cubos por potencia de dos
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    // Anota un valor (los negativos cuentan como 0).
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    // Valor por debajo del cual queda el porcentaje indicado de las muestras.
+    // @param percentile Entre 0 y 100.
+    // @return Límite superior del cubo correspondiente, o 0 si no hay muestras.
+    public long percentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(highest(i), max.get());
+        }
+        return max.get();
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getMax() { return max.get(); }
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Borra todas las muestras. Las que se anoten a la vez pueden perderse a medias.
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    // Los valores menores de 2*SUB van cada uno a su cubo; a partir de ahí se guardan
+    // los SUB_BITS+1 bits más altos y el exponente.
+    private static int index(long v) {
+        if (v < 2 * SUB) return (int) v;
+        int mag = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return mag * SUB + (int) (v >>> mag);
+    }
+
+    // Mayor valor que cae en el cubo i.
+    private static long highest(int i) {
+        if (i < 2 * SUB) return i;
+        int mag = i / SUB - 1;
+        long sub = i % SUB + SUB;
+        return ((sub + 1) << mag) - 1;
+    }
+}
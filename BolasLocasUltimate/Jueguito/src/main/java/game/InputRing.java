@@ -0,0 +1,69 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cola circular sin bloqueos de pulsaciones del ratón, de un productor (el EDT) a un
+// consumidor (el hilo de la simulación). Cada pulsación guarda su posición y el instante
+// (System.nanoTime()) en que se produjo, en arrays de primitivos: encolar no reserva memoria.
+// El consumidor las lee en bloque al principio de cada paso:
+//   long end = ring.published();
+//   for (long s = ring.head(); s < end; s++) ... ring.x(s), ring.y(s), ring.time(s)
+//   ring.release(end);
+// Si la simulación se queda atrás y la cola se llena, las pulsaciones nuevas se descartan
+// y se cuentan en getDropped().
+public final class InputRing {
+    private final int mask;
+    private final int[] x;
+    private final int[] y;
+    private final long[] time;
+    private final AtomicLong tail = new AtomicLong(); // Siguiente posición a escribir (productor)
+    private final AtomicLong head = new AtomicLong(); // Siguiente posición a leer (consumidor)
+    private long cachedHead;                           // Solo el productor
+    private volatile long dropped;
+
+    // @param capacity Pulsaciones que caben sin leer; se redondea a potencia de dos.
+    public InputRing(int capacity) {
+        int c = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = c - 1;
+        x = new int[c];
+        y = new int[c];
+        time = new long[c];
+    }
+
+    // Encola una pulsación. Solo desde el hilo productor.
+    // @return false si la cola estaba llena y se ha descartado.
+    public boolean offer(int px, int py, long nanos) {
+        long t = tail.get();
+        if (t - cachedHead > mask) {
+            cachedHead = head.get();
+            if (t - cachedHead > mask) {
+                dropped++; // Un solo escritor
+                return false;
+            }
+        }
+        int i = (int) t & mask;
+        x[i] = px;
+        y[i] = py;
+        time[i] = nanos;
+        tail.lazySet(t + 1); // Publica los datos escritos antes
+        return true;
+    }
+
+    // Primera pulsación sin leer. Solo desde el consumidor.
+    public long head() { return head.get(); }
+
+    // Fin (exclusivo) de las pulsaciones publicadas.
+    public long published() { return tail.get(); }
+
+    public int x(long s) { return x[(int) s & mask]; }
+    public int y(long s) { return y[(int) s & mask]; }
+    public long time(long s) { return time[(int) s & mask]; }
+
+    // Marca como leídas las pulsaciones hasta end (exclusivo) y deja sitio al productor.
+    public void release(long end) { head.lazySet(end); }
+
+    // Pulsaciones descartadas por tener la cola llena.
+    public long getDropped() { return dropped; }
+
+    public int capacity() { return mask + 1; }
+}
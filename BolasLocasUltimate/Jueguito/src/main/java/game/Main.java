@@ -4,6 +4,8 @@ import javax.swing.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Paths;
 public class Main extends WindowAdapter {
     private final JFrame frame;
     private Surface surface;
@@ -13,12 +15,24 @@ public class Main extends WindowAdapter {
     private int tiempoSeleccionado = 30;
     private MusicPlayer musicPlayer;
     private EndPanel endPanel;
+    // Dibujado activo con BufferStrategy (-Dgame.render=active) en lugar de repaint() de Swing
+    private final boolean activeRendering = "active".equals(System.getProperty("game.render"));
+    // Repintado solo de las zonas dañadas (-Dgame.dirtyRects=true)
+    private final boolean dirtyRegions = Boolean.getBoolean("game.dirtyRects");
+    // Bolas rasterizadas por baldosas en todos los núcleos (-Dgame.tiled=true)
+    private final boolean tiledRendering = Boolean.getBoolean("game.tiled");
+    // Carpeta donde grabar las partidas para repetirlas con GameReplay (-Dgame.record=carpeta)
+    private final String recordDir = System.getProperty("game.record");
+    // Servidor de partidas en red, "servidor[:puerto]" (-Dgame.server); sin él se juega en local
+    private final String server = System.getProperty("game.server");
 
     // Metodo main, inicio de el frame, lector de eventos y estados
     public Main() {
         frame = new JFrame("Bola Rebotando");
         frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         frame.addWindowListener(this);
+        SoundFX.init(); // Decodifica los efectos en segundo plano mientras se abre el menú
+        ScoreStore.shared(); // Carga los récords en segundo plano
 
         // Pantalla completa
         frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
@@ -33,7 +47,7 @@ public class Main extends WindowAdapter {
 
         musicPlayer = new MusicPlayer();
         musicPlayer.setVolume(0.05f); // % del volumen máximo
-        musicPlayer.playLoop("src/main/resources/LEAN.wav");
+        musicPlayer.playLoop("LEAN.wav");
     }
 
     // Muestra el panel de configuración
@@ -52,6 +66,18 @@ public class Main extends WindowAdapter {
         frame.remove(configPanel);
         surface = new Surface(bolasSeleccionadas, this); // <-- pasa this
         surface.setInitialTime(tiempoSeleccionado);
+        surface.setCollisions(configPanel.isChoques());
+        surface.setActiveRendering(activeRendering);
+        surface.setDirtyRegions(dirtyRegions);
+        surface.setTiledRendering(tiledRendering);
+        if (recordDir != null) surface.setRecording(Paths.get(recordDir));
+        if (server != null) {
+            try {
+                surface.setRemote(NetClient.connect(server));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("No se pudo conectar con " + server + ", se juega en local: " + e.getMessage());
+            }
+        }
         frame.add(surface);
         frame.revalidate();
         frame.repaint();
@@ -66,31 +92,42 @@ public class Main extends WindowAdapter {
     @Override
     public void windowClosing(WindowEvent e) {
         if (surface != null) surface.stop();
+        ScoreStore.closeShared(2000); // Termina de escribir los récords pendientes
         frame.dispose();
         System.exit(0);
     }
 
     public static void main(String[] args) {
+        PipelineProbe.configure(); // Antes de que se inicialice AWT
+        System.out.println(PipelineProbe.probe());
         SwingUtilities.invokeLater(new Main()::iniciar);
     }
 
-    // Muestra el panel final (victoria o derrota)
-    public void showEndPanel(boolean victoria) {
+    // Muestra el panel final (victoria o derrota) con la clasificación de la configuración jugada.
+    // @param resultado Partida terminada, o null si no cuenta para los récords (partida en red).
+    public void showEndPanel(boolean victoria, ScoreStore.Entry resultado) {
         String mensaje;
         Color color;
         String sonido;
         if (victoria) {
             mensaje = "¡Enhorabuena! ¡Has ganado!";
             color = Color.GREEN;
-            sonido = "src/main/resources/victoria.wav";
+            sonido = "victoria.wav";
         } else {
             mensaje = "¡Tiempo agotado! Has perdido la partida.";
             color = Color.RED;
-            sonido = "src/main/resources/derrota.wav";
+            sonido = "derrota.wav";
         }
         if (surface != null) surface.stop();
         frame.remove(surface);
+        ScoreStore.Leaderboard clasificacion = null;
+        if (resultado != null) {
+            ScoreStore scores = ScoreStore.shared();
+            scores.record(resultado); // Solo actualiza el índice; el disco lo escribe otro hilo
+            clasificacion = scores.leaderboard(resultado.balls, resultado.time);
+        }
         endPanel = new EndPanel(mensaje, color, sonido, this::restartGame);
+        endPanel.setLeaderboard(clasificacion, resultado);
         frame.add(endPanel);
         frame.revalidate();
         frame.repaint();
@@ -3,18 +3,27 @@ package game;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
-public class MenuPanel extends JPanel implements MouseListener {
-    private final List<Ball> balls;
+public class MenuPanel extends JPanel implements MouseListener, GameLoop.Simulation {
+    private final BallStore balls; // Solo lo toca el hilo del bucle
+    private final TripleBuffer<WorldFrame> frames;
+    private final ConcurrentLinkedQueue<Point> clicks = new ConcurrentLinkedQueue<>();
+    private final SpatialGrid grid = new SpatialGrid();
     private final Random random = new Random();
-    private Thread t;
-    private boolean running = true;
-    private Rectangle playButtonRect;
-    private Rectangle exitButtonRect;
-    private Rectangle aboutButtonRect;
+    private final GameLoop loop = new GameLoop(this, 60, 5);
+    // Geometría de título y botones: se calcula al cambiar de tamaño, no en cada frame
+    private final Rectangle playButtonRect = new Rectangle();
+    private final Rectangle exitButtonRect = new Rectangle();
+    private final Rectangle aboutButtonRect = new Rectangle();
+    private final TextLabel titulo = new TextLabel(RenderResources.MENU_TITLE).setText("BOLAS LOCAS");
+    private final TextLabel jugar = new TextLabel(RenderResources.MENU_BUTTON).setText("JUGAR");
+    private final TextLabel acerca = new TextLabel(RenderResources.MENU_BUTTON).setText("ACERCA DE");
+    private final TextLabel salir = new TextLabel(RenderResources.MENU_BUTTON).setText("SALIR");
+    private GradientPaint tituloPaint;
+    private int tituloX;
+    private int tituloY;
     private Runnable onPlay; // Acción al pulsar "Jugar"
 
     // Constructor del menú principal
@@ -22,14 +31,23 @@ public class MenuPanel extends JPanel implements MouseListener {
         Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
         setPreferredSize(screenSize);
         setBackground(Color.DARK_GRAY);
-        balls = new ArrayList<>();
+        balls = new BallStore(numBalls);
         for (int i = 0; i < numBalls; i++) {
-            balls.add(createRandomBall(screenSize.width, screenSize.height));
+            addRandomBall(screenSize.width, screenSize.height);
         }
+        frames = WorldFrame.tripleBuffer(numBalls);
+        frames.back().balls.copyFrom(balls);
+        frames.publish();
         this.onPlay = onPlay;
+        layoutMenu(screenSize.width, screenSize.height);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                layoutMenu(getWidth(), getHeight());
+            }
+        });
         addMouseListener(this);
         setFocusable(true);
-        startAnimation();
 
         // Key Listener para cerrar el menú 
         addKeyListener(new KeyAdapter() {
@@ -49,39 +67,63 @@ public class MenuPanel extends JPanel implements MouseListener {
         });
     }
 
-    // Crea una bola aleatoria
-    private Ball createRandomBall(int w, int h) {
+    // Añade una bola aleatoria
+    private void addRandomBall(int w, int h) {
         int size = random.nextInt(61) + 120;
         double x = random.nextDouble() * (w - size);
         double y = random.nextDouble() * (h - size);
         double direction = Math.toRadians(random.nextInt(360));
         double speed = random.nextDouble() * 200 + 100;
-        Color color = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
-        return new Ball(null, x, y, size, direction, speed, color);
+        int color = BallStore.argb(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+        balls.add(x, y, size, direction, speed, color);
+    }
+
+    // La animación va ligada a que el menú esté en pantalla: arranca al añadirlo a la
+    // ventana y se para al quitarlo, así un menú descartado no deja ningún bucle vivo.
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        startAnimation();
+    }
+
+    @Override
+    public void removeNotify() {
+        stopAnimation();
+        super.removeNotify();
     }
 
-    // Inicia la animación de las bolas
+    // Inicia la animación de las bolas con el mismo bucle de paso fijo que el juego
     private void startAnimation() {
-        t = new Thread(() -> {
-            long t0 = System.nanoTime();
-            while (running) {
-                long t1 = System.nanoTime();
-                long lapse = t1 - t0;
-                int w = getWidth();
-                int h = getHeight();
-                for (Ball ball : balls) ball.move(lapse, w, h);
-                repaint();
-                t0 = t1;
-                try { Thread.sleep(16); } catch (InterruptedException e) { running = false; }
-            }
-        });
-        t.start();
+        loop.start();
     }
 
     // Detiene la animación
     public void stopAnimation() {
-        running = false;
-        if (t != null) t.interrupt();
+        loop.stop();
+    }
+
+    // Paso fijo de la animación del menú.
+    @Override
+    public void step(long dt) {
+        int w = getWidth();
+        int h = getHeight();
+        // Clics sobre bolas recibidos desde el EDT
+        Point p;
+        while ((p = clicks.poll()) != null) {
+            int hit = grid.topmostAt(balls, p.x, p.y);
+            if (hit >= 0) balls.remove(hit);
+        }
+        balls.savePrevious();
+        Ball.move(balls, dt, w, h);
+        grid.update(balls, w, h);
+    }
+
+    // Publica una copia de las bolas para el EDT y solicita el repintado.
+    @Override
+    public void render(double alpha) {
+        frames.back().balls.copyFrom(balls);
+        frames.publish();
+        repaint();
     }
 
     @Override
@@ -91,36 +133,41 @@ public class MenuPanel extends JPanel implements MouseListener {
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         // Dibuja las bolas
-        for (Ball ball : balls) {
-            g2d.setColor(ball.getColor());
-            g2d.fillOval((int) ball.getX(), (int) ball.getY(), ball.getSize(), ball.getSize());
-            g2d.setColor(Color.BLACK);
-            g2d.drawOval((int) ball.getX(), (int) ball.getY(), ball.getSize(), ball.getSize());
-        }
+        Ball.paint(g2d, frames.acquire().balls, loop.interpolation(), SpriteCache.shared());
 
-        int panelWidth = getWidth();
-        int panelHeight = getHeight();
+        // Título con sombra y degradado
+        g2d.setColor(Color.BLACK);
+        titulo.draw(g2d, tituloX + 4, tituloY + 4);
+        g2d.setPaint(tituloPaint);
+        titulo.draw(g2d, tituloX, tituloY);
 
-        // Título centrado
-        g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Impact", Font.BOLD, 64));
-        String titulo = "BOLAS LOCAS";
-        FontMetrics fm = g2d.getFontMetrics();
-        int tituloWidth = fm.stringWidth(titulo);
-        int tituloX = (panelWidth - tituloWidth) / 2;
-        int tituloY = panelHeight / 6;
+        // Dibuja los botones
+        g2d.setColor(Color.ORANGE);
+        g2d.fill(playButtonRect);
+        g2d.fill(aboutButtonRect);
+        g2d.fill(exitButtonRect);
 
-        // Sombra
         g2d.setColor(Color.BLACK);
-        g2d.drawString(titulo, tituloX + 4, tituloY + 4);
+        g2d.draw(playButtonRect);
+        g2d.draw(aboutButtonRect);
+        g2d.draw(exitButtonRect);
+
+        jugar.drawCentered(g2d, (int) playButtonRect.getCenterX(), playButtonRect.y + 35);
+        acerca.drawCentered(g2d, (int) aboutButtonRect.getCenterX(), aboutButtonRect.y + 35);
+        salir.drawCentered(g2d, (int) exitButtonRect.getCenterX(), exitButtonRect.y + 35);
+    }
 
-        // Degradado
-        GradientPaint gp = new GradientPaint(
+    // Coloca el título y los botones para el tamaño indicado.
+    // @param panelWidth Ancho del panel.
+    // @param panelHeight Alto del panel.
+    private void layoutMenu(int panelWidth, int panelHeight) {
+        int tituloWidth = titulo.width();
+        tituloX = (panelWidth - tituloWidth) / 2;
+        tituloY = panelHeight / 6;
+        tituloPaint = new GradientPaint(
             tituloX, tituloY - 50, Color.YELLOW,
             tituloX + tituloWidth, tituloY + 20, Color.ORANGE
         );
-        g2d.setPaint(gp);
-        g2d.drawString(titulo, tituloX, tituloY);
 
         int botonAncho = 150, botonAlto = 50;
         int espacio = 30;
@@ -129,36 +176,13 @@ public class MenuPanel extends JPanel implements MouseListener {
         int botonY = (int) (panelHeight * 0.7);
 
         // Botón JUGAR
-        playButtonRect = new Rectangle(botonX, botonY, botonAncho, botonAlto);
+        playButtonRect.setBounds(botonX, botonY, botonAncho, botonAlto);
 
         // Botón ACERCA DE (debajo de JUGAR)
-        aboutButtonRect = new Rectangle(botonX, botonY + botonAlto + espacio, botonAncho, botonAlto);
+        aboutButtonRect.setBounds(botonX, botonY + botonAlto + espacio, botonAncho, botonAlto);
 
         // Botón SALIR (debajo de ACERCA DE)
-        exitButtonRect = new Rectangle(botonX, botonY + 2 * (botonAlto + espacio), botonAncho, botonAlto);
-
-        // Dibuja los botones
-        g2d.setColor(Color.ORANGE);
-        g2d.fill(playButtonRect);
-        g2d.fill(aboutButtonRect);
-        g2d.fill(exitButtonRect);
-
-        g2d.setColor(Color.BLACK);
-        g2d.draw(playButtonRect);
-        g2d.draw(aboutButtonRect);
-        g2d.draw(exitButtonRect);
-
-        g2d.setFont(new Font("Arial", Font.BOLD, 24));
-        String jugar = "JUGAR";
-        String acerca = "ACERCA DE";
-        String salir = "SALIR";
-        int jugarWidth = g2d.getFontMetrics().stringWidth(jugar);
-        int acercaWidth = g2d.getFontMetrics().stringWidth(acerca);
-        int salirWidth = g2d.getFontMetrics().stringWidth(salir);
-
-        g2d.drawString(jugar, botonX + (botonAncho - jugarWidth) / 2, botonY + 35);
-        g2d.drawString(acerca, botonX + (botonAncho - acercaWidth) / 2, botonY + botonAlto + espacio + 35);
-        g2d.drawString(salir, botonX + (botonAncho - salirWidth) / 2, botonY + 2 * (botonAlto + espacio) + 35);
+        exitButtonRect.setBounds(botonX, botonY + 2 * (botonAlto + espacio), botonAncho, botonAlto);
     }
 
     @Override
@@ -179,17 +203,7 @@ public class MenuPanel extends JPanel implements MouseListener {
             return;
         }
         // Clic sobre bolas
-        for (int i = balls.size() - 1; i >= 0; i--) {
-            Ball ball = balls.get(i);
-            double dx = mx - (ball.getX() + ball.getSize() / 2.0);
-            double dy = my - (ball.getY() + ball.getSize() / 2.0);
-            double dist = Math.sqrt(dx * dx + dy * dy);
-            if (dist <= ball.getSize() / 2.0) {
-                balls.remove(i);
-                repaint();
-                return;
-            }
-        }
+        clicks.add(e.getPoint());
     }
     @Override public void mousePressed(MouseEvent e) {}
     @Override public void mouseReleased(MouseEvent e) {}
@@ -0,0 +1,74 @@
+package game;
+
+import java.awt.*;
+
+// Panel superpuesto con los percentiles de FrameMetrics (se activa con F3).
+// Cada fila muestra p50, p90, p99, p99.9 y máximo, y una barra con el p99 frente al
+// presupuesto de un frame a 60 Hz: verde si cabe, roja si se pasa.
+// Los textos se recomponen 4 veces por segundo; entre medias pintar no reserva memoria.
+public final class MetricsOverlay {
+    // Zona que ocupa el panel, para marcarla como dañada al repintar por zonas
+    static final Rectangle BOUNDS = new Rectangle(20, 60, 600, 154);
+
+    private static final double BUDGET_MILLIS = 1000.0 / 60;
+    private static final long REFRESH_NANOS = 250_000_000L;
+    private static final int BAR = 100;
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 13);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 190);
+    private static final Color OK = new Color(80, 200, 80);
+    private static final Color OVER = new Color(230, 70, 60);
+    private static final String HEADER = String.format("%-12s%8s%8s%8s%8s%8s", "ms", "p50", "p90", "p99", "p99.9", "max");
+    private static final String[] NAMES = { "simulación", "pintado", "cola EDT", "entrada", "pausa GC", "asig. MB/s" };
+
+    private final String[] rows = new String[NAMES.length];
+    private final int[] bars = new int[NAMES.length];       // Largo de la barra del p99, -1 si no tiene
+    private final boolean[] over = new boolean[NAMES.length];
+    private long updated = System.nanoTime() - REFRESH_NANOS;
+
+    // Dibuja el panel.
+    // @param g Contexto gráfico.
+    // @param m Métricas que se muestran.
+    public void paint(Graphics2D g, FrameMetrics m) {
+        long now = System.nanoTime();
+        if (now - updated >= REFRESH_NANOS) {
+            updated = now;
+            refresh(m);
+        }
+        Rectangle b = BOUNDS;
+        g.setColor(BACKGROUND);
+        g.fillRect(b.x, b.y, b.width, b.height);
+        g.setFont(FONT);
+        int x = b.x + 10;
+        int y = b.y + 20;
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawString(HEADER, x, y);
+        for (int i = 0; i < rows.length; i++) {
+            y += 20;
+            g.setColor(Color.WHITE);
+            g.drawString(rows[i], x, y);
+            if (bars[i] < 0) continue;
+            int bx = x + 470;
+            g.setColor(over[i] ? OVER : OK);
+            g.fillRect(bx, y - 10, Math.max(1, bars[i]), 10);
+            g.setColor(Color.GRAY);
+            g.drawLine(bx + BAR / 2, y - 12, bx + BAR / 2, y + 1);
+        }
+    }
+
+    private void refresh(FrameMetrics m) {
+        row(0, m.simulation(), 1e6, true);
+        row(1, m.paint(), 1e6, true);
+        row(2, m.edtDelay(), 1e6, true);
+        row(3, m.input(), 1e6, false); // Siempre ocupa más de un frame: sin barra
+        row(4, m.gcPause(), 1e6, true);
+        row(5, m.allocation(), 1024.0 * 1024.0, false);
+    }
+
+    private void row(int i, Histogram h, double unit, boolean budget) {
+        double p99 = h.percentile(99) / unit;
+        rows[i] = String.format("%-12s%8.2f%8.2f%8.2f%8.2f%8.2f", NAMES[i],
+                h.percentile(50) / unit, h.percentile(90) / unit, p99, h.percentile(99.9) / unit, h.getMax() / unit);
+        bars[i] = budget ? (int) Math.min(BAR, p99 / BUDGET_MILLIS * BAR * 0.5) : -1; // El presupuesto queda a media barra
+        over[i] = p99 > BUDGET_MILLIS;
+    }
+}
@@ -1,43 +1,267 @@
 package game;
 
 import javax.sound.sampled.*;
-import java.io.File;
-
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
+// Reproductor de música en streaming.
+// En vez de cargar la pista entera en un Clip, un hilo decodificador lee el WAV
+// por bloques, aplica volumen y fundido, y deja las muestras en un buffer circular
+// pequeño; otro hilo las pasa a una SourceDataLine. La memoria no depende de la
+// duración de la pista y playLoop() vuelve en seguida, sin esperar al disco.
+// Al llegar al final la pista se reabre y sigue sin hueco; con crossfadeTo() se
+// funde la pista actual con la siguiente.
+// La línea de audio y su hilo solo se abren cuando ya hay muestras decodificadas: si la
+// pista no existe no queda ningún hilo despertándose para nada, y el decodificador termina.
 public class MusicPlayer {
-    private Clip clip;
-    private float volume = 0.3f; // Volumen por defecto (0.0 = silencio, 1.0 = máximo)
+    private static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    private static final int BLOCK_FRAMES = 1024;
+    private static final int RING_FRAMES = 8192; // ~186 ms de margen entre disco y salida
+
+    private volatile float volume = 0.3f; // Volumen por defecto (0.0 = silencio, 1.0 = máximo)
+    private static final Set<String> MISSING = ConcurrentHashMap.newKeySet(); // Pistas que no se pudieron abrir (se avisa una vez)
+    private final AtomicReference<Fade> pending = new AtomicReference<>();
+    private final short[] ring = new short[RING_FRAMES * 2];
+    private volatile long written; // Muestras escritas en el buffer circular
+    private volatile long read;    // Muestras leídas del buffer circular
+    private volatile boolean running;
+    private volatile Thread decoder;
+    private volatile Thread output;
 
     // Reproduce música en bucle
     public void playLoop(String filePath) {
-        try {
-            AudioInputStream audioIn = AudioSystem.getAudioInputStream(new File(filePath));
-            clip = AudioSystem.getClip();
-            clip.open(audioIn);
-            // Aplica el volumen aquí
-            setVolume(volume);
-            clip.loop(Clip.LOOP_CONTINUOUSLY);
-            clip.start();
-        } catch (Exception e) {
-            e.printStackTrace();
+        crossfadeTo(filePath, 0);
+    }
+
+    // Cambia de pista fundiendo la actual con la nueva.
+    // @param filePath Nombre del WAV en el classpath.
+    // @param millis Duración del fundido (0 = corte inmediato).
+    public synchronized void crossfadeTo(String filePath, int millis) {
+        pending.set(new Fade(filePath, (int) (millis * FORMAT.getSampleRate() / 1000)));
+        running = true;
+        if (decoder == null) {
+            decoder = Scheduler.shared().newThread("music-decoder", Thread.NORM_PRIORITY, this::decodeLoop);
+            decoder.start();
+        } else {
+            LockSupport.unpark(decoder);
         }
     }
 
+    // Abre la salida con el primer bloque decodificado. Solo desde el decodificador.
+    private synchronized void startOutput() {
+        if (!running || output != null) return;
+        output = Scheduler.shared().newThread("music-output", Thread.NORM_PRIORITY, this::outputLoop);
+        output.start();
+    }
+
+    // true si el hilo decodificador debe terminar por no tener nada que reproducir.
+    private synchronized boolean idle() {
+        if (pending.get() != null) return false;
+        if (decoder == Thread.currentThread()) decoder = null; // La próxima pista arranca otro
+        return true;
+    }
+
     // Detiene la música
-    public void stop() {
-        if (clip != null && clip.isRunning()) {
-            clip.stop();
-            clip.close();
-        }
+    public synchronized void stop() {
+        running = false;
+        if (decoder != null) LockSupport.unpark(decoder);
+        if (output != null) LockSupport.unpark(output);
+        decoder = null;
+        output = null;
     }
 
     // Ajusta el volumen
     public void setVolume(float volume) {
         this.volume = volume;
-        if (clip != null) {
-            FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-            float dB = (float) (Math.log(volume == 0 ? 0.0001 : volume) / Math.log(10.0) * 20.0);
-            gainControl.setValue(dB);
+    }
+
+    // Hilo decodificador: mezcla pista actual y entrante en el buffer circular.
+    private void decodeLoop() {
+        Track current = null;
+        Track incoming = null;
+        int fadeLength = 0;
+        int fadePos = 0;
+        short[] a = new short[BLOCK_FRAMES * 2];
+        short[] b = new short[BLOCK_FRAMES * 2];
+
+        while (running && Thread.currentThread() == decoder) {
+            Fade f = pending.getAndSet(null);
+            if (f != null) {
+                Track t = Track.open(f.path);
+                if (t != null) {
+                    if (current == null || f.frames == 0) {
+                        if (current != null) current.close();
+                        if (incoming != null) incoming.close();
+                        current = t;
+                        incoming = null;
+                    } else {
+                        if (incoming != null) incoming.close();
+                        incoming = t;
+                        fadeLength = f.frames;
+                        fadePos = 0;
+                    }
+                }
+            }
+            if (current == null) {
+                if (idle()) return; // Ninguna pista se pudo abrir
+                continue;
+            }
+            // Espera a que haya sitio para un bloque entero
+            if (ring.length - (written - read) < a.length) {
+                LockSupport.parkNanos(this, 5_000_000L);
+                continue;
+            }
+
+            current.read(a);
+            float vol = volume;
+            if (incoming != null) {
+                incoming.read(b);
+                for (int i = 0; i < a.length; i += 2) {
+                    float t = Math.min(1f, (fadePos + i / 2) / (float) fadeLength);
+                    a[i] = clip((a[i] * (1 - t) + b[i] * t) * vol);
+                    a[i + 1] = clip((a[i + 1] * (1 - t) + b[i + 1] * t) * vol);
+                }
+                fadePos += BLOCK_FRAMES;
+                if (fadePos >= fadeLength) {
+                    current.close();
+                    current = incoming;
+                    incoming = null;
+                }
+            } else {
+                for (int i = 0; i < a.length; i++) a[i] = clip(a[i] * vol);
+            }
+
+            long w = written;
+            for (int i = 0; i < a.length; i++) ring[(int) ((w + i) % ring.length)] = a[i];
+            written = w + a.length;
+            if (output == null) startOutput();
+            LockSupport.unpark(output);
+        }
+        if (current != null) current.close();
+        if (incoming != null) incoming.close();
+    }
+
+    // Hilo de salida: vacía el buffer circular en la línea de audio.
+    private void outputLoop() {
+        SourceDataLine line;
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, BLOCK_FRAMES * 4 * 4);
+            line.start();
+        } catch (Exception e) {
+            System.err.println("Sin salida de audio para la música: " + e.getMessage());
+            // Sin línea se sigue consumiendo para que el decodificador no se quede parado
+            while (running && Thread.currentThread() == output) {
+                read = written;
+                LockSupport.parkNanos(this, 20_000_000L);
+            }
+            return;
+        }
+        byte[] out = new byte[BLOCK_FRAMES * 4];
+        try {
+            while (running && Thread.currentThread() == output) {
+                long r = read;
+                int available = (int) Math.min(written - r, out.length / 2);
+                if (available == 0) {
+                    LockSupport.parkNanos(this, 5_000_000L);
+                    continue;
+                }
+                for (int i = 0; i < available; i++) {
+                    short s = ring[(int) ((r + i) % ring.length)];
+                    out[i * 2] = (byte) s;
+                    out[i * 2 + 1] = (byte) (s >> 8);
+                }
+                read = r + available;
+                LockSupport.unpark(decoder);
+                line.write(out, 0, available * 2);
+            }
+        } finally {
+            line.stop();
+            line.close();
+        }
+    }
+
+    private static short clip(float v) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v));
+    }
+
+    // Petición de cambio de pista.
+    private static final class Fade {
+        final String path;
+        final int frames;
+
+        Fade(String path, int frames) {
+            this.path = path;
+            this.frames = frames;
+        }
+    }
+
+    // Pista abierta en streaming que vuelve al principio al acabar.
+    private static final class Track {
+        private final String path;
+        private AudioInputStream stream;
+        private final byte[] bytes = new byte[BLOCK_FRAMES * 4];
+
+        private Track(String path) throws Exception {
+            this.path = path;
+            this.stream = openStream(path);
+        }
+
+        static Track open(String path) {
+            try {
+                return new Track(path);
+            } catch (Exception e) {
+                if (MISSING.add(path)) System.err.println("No se pudo abrir la música " + path + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        // Rellena el bloque entero; al llegar al final reabre la pista y continúa.
+        void read(short[] out) {
+            int need = out.length * 2;
+            int got = 0;
+            boolean reopened = false;
+            try {
+                while (got < need) {
+                    int n = stream.read(bytes, got, need - got);
+                    if (n > 0) {
+                        got += n;
+                        reopened = false;
+                    } else {
+                        if (reopened) break; // Pista vacía: no insistir
+                        stream.close();
+                        stream = openStream(path);
+                        reopened = true;
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Error leyendo la música " + path + ": " + e.getMessage());
+            }
+            for (int i = 0; i < out.length; i++) {
+                int k = i * 2;
+                out[i] = k + 1 < got ? (short) ((bytes[k] & 0xFF) | (bytes[k + 1] << 8)) : 0;
+            }
+        }
+
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // Nada que hacer
+            }
+        }
+
+        // Abre el WAV convertido al formato de salida (16 bits, estéreo, 44100 Hz).
+        private static AudioInputStream openStream(String path) throws Exception {
+            AudioInputStream in = AudioSystem.getAudioInputStream(new BufferedInputStream(Assets.resolve(path).openStream()));
+            AudioFormat src = in.getFormat();
+            AudioFormat pcm = new AudioFormat(src.getSampleRate(), 16, src.getChannels(), true, false);
+            AudioInputStream pcmIn = AudioSystem.getAudioInputStream(pcm, in);
+            return FORMAT.matches(pcm) ? pcmIn : AudioSystem.getAudioInputStream(FORMAT, pcmIn);
         }
     }
-}
\ No newline at end of file
+}
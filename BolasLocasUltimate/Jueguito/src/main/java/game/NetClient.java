@@ -0,0 +1,387 @@
+package game;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cliente de una partida en GameServer.
+// Un hilo lee las instantáneas, las decodifica con SnapshotCodec y guarda las últimas
+// HISTORY. Al dibujar, fill() interpola entre las dos que rodean al instante que se
+// muestra, que va INTERPOLATION_SNAPSHOTS instantáneas por detrás del servidor: así
+// siempre hay una posterior con la que interpolar aunque alguna llegue con retraso.
+// El reloj del servidor se estima con el paso de cada instantánea y su hora de llegada.
+// Los avisos de GameWorld.Listener (acierto, fallo y fin de partida del jugador de este
+// cliente) se llaman desde el hilo lector.
+//
+// Prueba de carga: java -cp GameProject.jar game.NetClient [servidor[:puerto]] [clientes] [segundos]
+// conecta bots que hacen clic casi siempre en la bola de delante y, al acabar, informa
+// de los bytes recibidos por paso y cliente.
+public class NetClient implements AutoCloseable {
+    private static final int HISTORY = 8;
+    private static final double INTERPOLATION_SNAPSHOTS = 1.5;
+    private static final GameWorld.Listener NONE = new GameWorld.Listener() {};
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(NetProtocol.MAX_CLIENT_FRAME + 5).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer message = ByteBuffer.allocate(NetProtocol.MAX_CLIENT_FRAME).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer in = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN).flip();
+    private final SnapshotCodec codec = new SnapshotCodec(); // Solo el hilo lector
+    private final Thread reader;
+    private volatile GameWorld.Listener listener = NONE;
+    private volatile boolean closed;
+
+    // Datos de WELCOME
+    private final int player;
+    private final int players;
+    private final int width;
+    private final int height;
+    private final long stepNanos;
+    private final long delayNanos;
+
+    // Instantáneas recibidas (protegidas por this)
+    private final Snapshot[] history = new Snapshot[HISTORY];
+    private int newest = -1;
+    private int stored;
+    private long offset;      // Hora local menos hora del servidor
+    private boolean synced;
+    private boolean over;
+    private long firstTick = -1;
+    private long lastTick;
+
+    private final AtomicLong bytes = new AtomicLong();
+    private int keyframes;
+
+    // Una instantánea decodificada. x e y se indexan desde first.
+    private static final class Snapshot {
+        long tick;
+        int timeLeft;
+        int state;
+        int winner = -1;
+        int[] hits;
+        int[] misses;
+        boolean keyframe;
+        int first;
+        int count;
+        double[] x = new double[0];
+        double[] y = new double[0];
+        int[] size = new int[0];
+        int[] color = new int[0];
+    }
+
+    private NetClient(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        message.clear();
+        message.put(NetProtocol.HELLO).putInt(NetProtocol.MAGIC).put(NetProtocol.VERSION);
+        send();
+        ByteBuffer welcome = readFrame();
+        if (welcome.get() != NetProtocol.WELCOME) throw new IOException("Respuesta inesperada del servidor");
+        player = welcome.get();
+        players = welcome.get();
+        width = (int) NetProtocol.getVarint(welcome);
+        height = (int) NetProtocol.getVarint(welcome);
+        stepNanos = 1_000_000_000L / NetProtocol.getVarint(welcome);
+        delayNanos = (long) (NetProtocol.getVarint(welcome) * stepNanos * INTERPOLATION_SNAPSHOTS);
+        for (int i = 0; i < HISTORY; i++) {
+            history[i] = new Snapshot();
+            history[i].hits = new int[players];
+            history[i].misses = new int[players];
+        }
+        reader = Scheduler.shared().newThread("net-client", Thread.NORM_PRIORITY, this::readLoop);
+    }
+
+    // Se conecta y entra en una partida.
+    // @param address "servidor" o "servidor:puerto" (GameServer.DEFAULT_PORT si no se indica).
+    public static NetClient connect(String address) throws IOException {
+        String host = address;
+        int port = GameServer.DEFAULT_PORT;
+        int colon = address.lastIndexOf(':');
+        if (colon >= 0) {
+            host = address.substring(0, colon);
+            port = Integer.parseInt(address.substring(colon + 1));
+        }
+        SocketChannel ch = SocketChannel.open(new InetSocketAddress(host, port));
+        try {
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            NetClient c = new NetClient(ch);
+            c.reader.start();
+            return c;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    // Establece quién recibe los avisos de la partida.
+    public void setListener(GameWorld.Listener listener) {
+        this.listener = listener != null ? listener : NONE;
+    }
+
+    // Envía un clic al servidor, que lo aplica en su siguiente paso.
+    public void click(int x, int y) {
+        if (closed) return;
+        synchronized (message) {
+            message.clear();
+            message.put(NetProtocol.CLICK);
+            NetProtocol.putZigzag(message, x);
+            NetProtocol.putZigzag(message, y);
+            try {
+                send();
+            } catch (IOException e) {
+                lost(e);
+            }
+        }
+    }
+
+    // Rellena el frame con el estado interpolado que toca mostrar en este instante.
+    // @param f Frame de destino.
+    // @param now System.nanoTime() del momento en que se va a dibujar.
+    public synchronized void fill(WorldFrame f, long now) {
+        f.balls.clear();
+        f.physicsMillis = 0;
+        f.contacts = 0;
+        if (newest < 0) return;
+        Snapshot last = history[newest];
+        f.timeLeft = last.timeLeft;
+        f.gameOver = (last.state & NetProtocol.OVER) != 0;
+
+        // Instantánea b posterior al instante mostrado y la anterior a, si la hay
+        long t = now - offset - delayNanos;
+        int b = newest;
+        for (int k = 1; k < stored; k++) {
+            int prev = (newest - k + HISTORY) % HISTORY;
+            if (history[prev].tick * stepNanos < t) break;
+            b = prev;
+        }
+        Snapshot sb = history[b];
+        int oldest = (newest - stored + 1 + HISTORY) % HISTORY;
+        // Sin anterior, o con otros índices tras una completa: se muestra b tal cual
+        Snapshot sa = b != oldest && !sb.keyframe ? history[(b - 1 + HISTORY) % HISTORY] : null;
+        double alpha = 1;
+        if (sa != null) {
+            long ta = sa.tick * stepNanos, tb = sb.tick * stepNanos;
+            alpha = tb > ta ? Math.max(0, Math.min(1, (double) (t - ta) / (tb - ta))) : 1;
+        }
+        for (int j = 0; j < sb.count; j++) {
+            int id = sb.first + j;
+            double x = sb.x[j], y = sb.y[j];
+            if (sa != null && id >= sa.first && id < sa.first + sa.count) {
+                int k = id - sa.first;
+                x = sa.x[k] + (x - sa.x[k]) * alpha;
+                y = sa.y[k] + (y - sa.y[k]) * alpha;
+            }
+            f.balls.add(x, y, sb.size[j], 0, 0, sb.color[j]);
+        }
+    }
+
+    public int getPlayer() { return player; }
+    public int getPlayers() { return players; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public boolean isClosed() { return closed; }
+
+    // Aciertos del jugador indicado según la última instantánea.
+    public synchronized int getHits(int p) { return newest < 0 ? 0 : history[newest].hits[p]; }
+
+    // true si la partida ha empezado (están todos los jugadores).
+    public synchronized boolean isStarted() {
+        return newest >= 0 && (history[newest].state & NetProtocol.STARTED) != 0;
+    }
+
+    // Bytes recibidos por paso del servidor desde la primera instantánea.
+    public synchronized double getBytesPerTick() {
+        long ticks = lastTick - firstTick;
+        return ticks <= 0 ? 0 : (double) bytes.get() / ticks;
+    }
+
+    public synchronized int getKeyframes() { return keyframes; }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Ya estaba cerrado
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (!closed) {
+                ByteBuffer m = readFrame();
+                if (m.get() == NetProtocol.SNAPSHOT) snapshot(m);
+            }
+        } catch (IOException | RuntimeException e) {
+            lost(e);
+        }
+    }
+
+    // Decodifica una instantánea, la guarda y avisa de lo que le ha pasado a este jugador.
+    private void snapshot(ByteBuffer m) {
+        long tick = NetProtocol.getVarint(m);
+        int timeLeft = (int) NetProtocol.getVarint(m);
+        int state = m.get();
+        int winner = m.get() - 1;
+        int hits = 0, misses = 0;
+        boolean wasOver;
+        synchronized (this) {
+            wasOver = over;
+            Snapshot prev = newest >= 0 ? history[newest] : null;
+            int slot = (newest + 1) % HISTORY;
+            Snapshot s = history[slot];
+            for (int p = 0; p < players; p++) {
+                s.hits[p] = (int) NetProtocol.getVarint(m);
+                s.misses[p] = (int) NetProtocol.getVarint(m);
+            }
+            codec.decode(m);
+            s.tick = tick;
+            s.timeLeft = timeLeft;
+            s.state = state;
+            s.winner = winner;
+            s.keyframe = codec.isKeyframe();
+            s.first = codec.first();
+            s.count = codec.end() - s.first;
+            if (s.x.length < s.count) {
+                int c = Math.max(s.count, s.x.length * 2);
+                s.x = new double[c];
+                s.y = new double[c];
+                s.size = new int[c];
+                s.color = new int[c];
+            }
+            for (int j = 0; j < s.count; j++) {
+                int id = s.first + j;
+                s.x[j] = codec.getX(id);
+                s.y[j] = codec.getY(id);
+                s.size[j] = codec.getSize(id);
+                s.color[j] = codec.getColor(id);
+            }
+            if (prev != null) {
+                hits = s.hits[player] - prev.hits[player];
+                misses = s.misses[player] - prev.misses[player];
+            }
+            if (s.keyframe) keyframes++;
+            newest = slot;
+            stored = Math.min(stored + 1, HISTORY);
+
+            // Reloj: el retraso mínimo observado, que sube despacio si la red se vuelve más lenta
+            long sample = System.nanoTime() - tick * stepNanos;
+            if (!synced || sample < offset) offset = sample;
+            else offset += (sample - offset) / 64;
+            synced = true;
+            if (firstTick < 0) firstTick = tick;
+            lastTick = tick;
+            over = (state & NetProtocol.OVER) != 0;
+        }
+        GameWorld.Listener l = listener;
+        for (int i = 0; i < hits; i++) l.onHit();
+        for (int i = 0; i < misses; i++) l.onMiss();
+        if (over && !wasOver) l.onGameOver(winner == player);
+    }
+
+    // Conexión perdida: si la partida no había terminado, se da por perdida.
+    private void lost(Exception e) {
+        boolean wasClosed = closed;
+        close();
+        boolean notify;
+        synchronized (this) {
+            notify = !over;
+            over = true;
+        }
+        if (notify && !wasClosed) {
+            System.err.println("Conexión con el servidor perdida: " + e.getMessage());
+            listener.onGameOver(false);
+        }
+    }
+
+    // Envía message como un mensaje completo.
+    private void send() throws IOException {
+        message.flip();
+        synchronized (out) {
+            out.clear();
+            NetProtocol.putFrame(out, message);
+            out.flip();
+            while (out.hasRemaining()) channel.write(out);
+        }
+    }
+
+    // Lee un mensaje completo (bloqueando) y lo devuelve en modo lectura.
+    // Entre llamadas, in queda en modo lectura con lo que ya ha llegado del siguiente.
+    private ByteBuffer readFrame() throws IOException {
+        int len;
+        while ((len = NetProtocol.frame(in)) < 0) {
+            in.compact();
+            if (!in.hasRemaining()) { // Mensaje más grande que el buffer
+                ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                in.flip();
+                in = bigger.put(in);
+            }
+            int n = channel.read(in);
+            in.flip();
+            if (n < 0) throw new EOFException("El servidor ha cerrado la conexión");
+            bytes.addAndGet(n);
+        }
+        ByteBuffer m = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        int limit = in.limit();
+        in.limit(in.position() + len);
+        m.put(in).flip();
+        in.limit(limit);
+        return m;
+    }
+
+    // Prueba de carga con bots.
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        String address = args.length > 0 ? args[0] : "localhost";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        AtomicInteger finished = new AtomicInteger();
+        List<NetClient> clients = new ArrayList<>();
+        List<ScheduledFuture<?>> bots = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            NetClient c = connect(address);
+            c.setListener(new GameWorld.Listener() {
+                @Override public void onGameOver(boolean won) { finished.incrementAndGet(); }
+            });
+            clients.add(c);
+            WorldFrame frame = new WorldFrame(16);
+            Random bot = new Random(i);
+            bots.add(Scheduler.shared().scheduleAtFixedRate(() -> {
+                if (c.isClosed() || !c.isStarted()) return;
+                c.fill(frame, System.nanoTime());
+                int top = frame.balls.front();
+                if (top >= 0 && bot.nextInt(10) != 0) {
+                    double half = frame.balls.getSize(top) / 2;
+                    c.click((int) (frame.balls.getX(top) + half), (int) (frame.balls.getY(top) + half));
+                } else {
+                    c.click(bot.nextInt(c.getWidth()), bot.nextInt(c.getHeight()));
+                }
+            }, 200 + i % 50 * 10, 400, TimeUnit.MILLISECONDS));
+        }
+        System.out.printf("%d clientes conectados a %s%n", count, address);
+        Thread.sleep(seconds * 1000L);
+
+        double sum = 0;
+        int keyframes = 0;
+        for (ScheduledFuture<?> f : bots) f.cancel(false);
+        for (NetClient c : clients) {
+            sum += c.getBytesPerTick();
+            keyframes += c.getKeyframes();
+            c.close();
+        }
+        System.out.printf(Locale.ROOT, "Recibido: %.1f B/paso por cliente (%.1f kB/s), %d instantáneas completas, %d partidas terminadas%n",
+                sum / count, sum / count * GameServer.TICKS_PER_SECOND / 1024, keyframes, finished.get());
+    }
+}
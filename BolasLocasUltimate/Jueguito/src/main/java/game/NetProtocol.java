@@ -0,0 +1,94 @@
+package game;
+
+import java.nio.ByteBuffer;
+
+// Protocolo de red entre GameServer y NetClient sobre TCP.
+// Cada mensaje va precedido de su longitud (varint) y empieza por un byte de tipo.
+// Los enteros van en varint (7 bits por byte) y los que pueden ser negativos en zigzag.
+// GameRecorder y GameReplay usan estas mismas funciones para las grabaciones.
+//
+//   cliente -> servidor
+//     HELLO    "BLNP" (4, little-endian), versión (1)
+//     CLICK    x, y (zigzag)
+//   servidor -> cliente
+//     WELCOME  jugador, jugadores (1 + 1), ancho, alto, pasos por segundo,
+//              pasos entre instantáneas (varint)
+//     SNAPSHOT paso (varint), tiempo restante (varint), estado (1: STARTED | OVER | WON),
+//              ganador + 1 (1, 0 = empate o sin terminar), aciertos y fallos de cada
+//              jugador (varint) y las bolas (ver SnapshotCodec)
+public final class NetProtocol {
+    static final int MAGIC = 0x504e4c42; // "BLNP" en little-endian
+    static final byte VERSION = 1;
+
+    static final byte HELLO = 1;
+    static final byte CLICK = 2;
+    static final byte WELCOME = 16;
+    static final byte SNAPSHOT = 17;
+
+    // Bits del byte de estado de SNAPSHOT
+    static final int STARTED = 1;   // Ya están todos los jugadores y corre el tiempo
+    static final int OVER = 2;      // Partida terminada
+    static final int WON = 4;       // Terminó porque no quedan bolas
+
+    static final int QUANT = 4;     // Las posiciones viajan en cuartos de píxel
+    static final int MAX_CLIENT_FRAME = 64; // Un mensaje del cliente nunca es más largo
+
+    private NetProtocol() {}
+
+    // Busca un mensaje completo en in (en modo lectura). Si lo hay, deja la posición
+    // tras el prefijo de longitud y devuelve la longitud; si no, no mueve nada y devuelve -1.
+    static int frame(ByteBuffer in) {
+        int start = in.position();
+        long len = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!in.hasRemaining() || shift > 28) {
+                in.position(start);
+                return -1;
+            }
+            int b = in.get();
+            len |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        if (in.remaining() < len) {
+            in.position(start);
+            return -1;
+        }
+        return (int) len;
+    }
+
+    // Copia el cuerpo (en modo lectura) a out precedido de su longitud.
+    static void putFrame(ByteBuffer out, ByteBuffer body) {
+        putVarint(out, body.remaining());
+        out.put(body);
+    }
+
+    static void putVarint(ByteBuffer out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    static void putZigzag(ByteBuffer out, long v) {
+        putVarint(out, (v << 1) ^ (v >> 63));
+    }
+
+    static long getVarint(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalArgumentException("Varint demasiado largo");
+    }
+
+    static long getZigzag(ByteBuffer in) {
+        long v = getVarint(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // Coordenada cuantizada.
+    static int quantize(double v) { return (int) Math.round(v * QUANT); }
+}
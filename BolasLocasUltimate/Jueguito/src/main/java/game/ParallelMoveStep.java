@@ -0,0 +1,72 @@
+package game;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Movimiento de las bolas repartido en trozos sobre un ForkJoinPool.
+// Cada bola se mueve de forma independiente con el mismo código que Ball.move,
+// así que el resultado es idéntico bit a bit al de la versión secuencial.
+// Por debajo del umbral se ejecuta en el hilo actual: repartir no compensa.
+public class ParallelMoveStep implements PhysicsStep {
+    private static final int CHUNK = 4096; // Bolas por tarea como mínimo
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    // Constructor.
+    // @param threshold Número de bolas a partir del que se reparte el trabajo.
+    public ParallelMoveStep(int threshold) {
+        this(ForkJoinPool.commonPool(), threshold);
+    }
+
+    public ParallelMoveStep(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    // Umbral configurado con -Dgame.parallelThreshold (20000 bolas por defecto).
+    public static ParallelMoveStep fromSystemProperties() {
+        return new ParallelMoveStep(Integer.getInteger("game.parallelThreshold", 20_000));
+    }
+
+    @Override
+    public void apply(BallStore balls, long lapse, int width, int height) {
+        int n = balls.size();
+        if (n < threshold || pool.getParallelism() < 2) {
+            Ball.move(balls, balls.first(), balls.end(), lapse, width, height);
+        } else {
+            pool.invoke(new Chunk(balls, balls.first(), balls.end(), lapse, width, height));
+        }
+    }
+
+    // Indica si con n bolas se reparte el trabajo.
+    public boolean isParallel(int n) { return n >= threshold && pool.getParallelism() >= 2; }
+
+    // Trozo [from, to) que se divide por la mitad hasta quedar por debajo de CHUNK.
+    private static final class Chunk extends RecursiveAction {
+        private final BallStore balls;
+        private final int from, to;
+        private final long lapse;
+        private final int width, height;
+
+        Chunk(BallStore balls, int from, int to, long lapse, int width, int height) {
+            this.balls = balls;
+            this.from = from;
+            this.to = to;
+            this.lapse = lapse;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                Ball.move(balls, from, to, lapse, width, height);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Chunk(balls, from, mid, lapse, width, height),
+                      new Chunk(balls, mid, to, lapse, width, height));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package game;
+
+// Paso de física que Surface aplica en cada frame sobre el almacén de bolas.
+// Los pasos se encadenan en orden: primero el movimiento y después las colisiones.
+public interface PhysicsStep {
+    // Movimiento con rebote en los bordes (Ball.move).
+    PhysicsStep WALLS = Ball::move;
+
+    // Aplica el paso.
+    // @param balls Almacén de bolas.
+    // @param lapse Tiempo simulado (nanosegundos).
+    // @param width Ancho de la superficie.
+    // @param height Alto de la superficie.
+    void apply(BallStore balls, long lapse, int width, int height);
+}
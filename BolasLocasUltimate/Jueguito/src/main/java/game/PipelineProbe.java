@@ -0,0 +1,244 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Locale;
+
+// Elección y comprobación del pipeline de Java2D.
+// configure() fija las propiedades sun.java2d.* antes de que se inicialice AWT (después
+// ya no tienen efecto); probe() mira qué pipeline ha quedado activo, comprueba que una
+// VolatileImage está acelerada y dibuja lo que se le pide, y mide cuánto rellena y
+// cuántos sprites copia por segundo en la pantalla frente a una imagen en memoria.
+// Si la comprobación falla, Swing y el ActiveRenderer pasan a buffers en memoria.
+//
+// -Dgame.pipeline=auto|opengl|xrender|software (auto: XRender en Linux y lo que la JVM
+// elija por defecto en los demás sistemas). Si el pipeline pedido no está disponible,
+// la JVM vuelve al suyo por defecto y el informe lo indica.
+//
+// Uso suelto: java -cp GameProject.jar game.PipelineProbe
+public final class PipelineProbe {
+    private static final int SIZE = 512;          // Lado de la superficie de prueba
+    private static final long MEASURE_NANOS = 100_000_000L; // Por cada medida
+    private static final int SPRITE = 32;
+    private static final int CHECK = 0x3366CC;    // Color con el que se comprueba el dibujo
+
+    // Resultado de la prueba.
+    public static final class Result {
+        public String requested;          // Valor de game.pipeline
+        public String pipeline;           // Pipeline activo
+        public boolean accelerated;       // VolatileImage acelerada y dibujando bien
+        public String problem;            // Por qué no se usa la aceleración, o null
+        public double fillMpix;           // Relleno en la superficie de pantalla (Mpx/s)
+        public double softwareFillMpix;   // Relleno en una BufferedImage (Mpx/s)
+        public double sprites;            // Sprites de 32 px copiados por segundo en pantalla
+        public double softwareSprites;    // Ídem en memoria
+
+        @Override
+        public String toString() {
+            StringBuilder b = new StringBuilder("Java2D: ").append(pipeline);
+            if (!"auto".equals(requested)) b.append(" (pedido ").append(requested).append(')');
+            b.append(accelerated ? ", acelerado" : ", sin aceleración");
+            if (problem != null) b.append(" [").append(problem).append(']');
+            if (accelerated) {
+                b.append(String.format(Locale.ROOT, "%n  relleno %.0f Mpx/s (memoria %.0f, x%.1f), sprites %.0fk/s (memoria %.0fk, x%.1f)",
+                        fillMpix, softwareFillMpix, fillMpix / softwareFillMpix,
+                        sprites / 1e3, softwareSprites / 1e3, sprites / softwareSprites));
+            } else {
+                b.append(String.format(Locale.ROOT, "%n  relleno %.0f Mpx/s, sprites %.0fk/s (en memoria)",
+                        softwareFillMpix, softwareSprites / 1e3));
+            }
+            return b.toString();
+        }
+    }
+
+    private static volatile Result result;
+
+    private PipelineProbe() {}
+
+    public static void main(String[] args) {
+        configure();
+        System.out.println(probe());
+        System.exit(0);
+    }
+
+    // Fija las propiedades del pipeline según -Dgame.pipeline. Hay que llamarlo antes de
+    // usar cualquier clase gráfica. Las propiedades sun.java2d.* que ya vengan en la línea
+    // de órdenes se respetan.
+    public static void configure() {
+        switch (requested()) {
+            case "opengl":
+                setDefault("sun.java2d.opengl", "True"); // Con mayúscula la JVM dice si lo consigue
+                break;
+            case "xrender":
+                setDefault("sun.java2d.xrender", "True");
+                break;
+            case "software":
+                setDefault("sun.java2d.opengl", "false");
+                setDefault("sun.java2d.xrender", "false");
+                setDefault("sun.java2d.d3d", "false");
+                setDefault("sun.java2d.pmoffscreen", "false"); // Sin pixmaps de X11 para las imágenes
+                break;
+            default:
+                if (System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")) {
+                    setDefault("sun.java2d.xrender", "true");
+                }
+        }
+    }
+
+    // Comprueba y mide el pipeline activo. Tarda unos 400 ms; se hace una vez al arrancar,
+    // antes de crear la ventana.
+    public static Result probe() {
+        Result r = new Result();
+        r.requested = requested();
+        BufferedImage memory = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        r.softwareFillMpix = fill(memory, null);
+        r.softwareSprites = blit(memory, null, null);
+
+        if (GraphicsEnvironment.isHeadless()) {
+            r.pipeline = "headless";
+            r.problem = "sin pantalla";
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            r.pipeline = pipelineName(gc);
+            try {
+                VolatileImage vi = gc.createCompatibleVolatileImage(SIZE, SIZE, Transparency.OPAQUE);
+                vi.validate(gc);
+                if (!vi.getCapabilities().isAccelerated()) {
+                    r.problem = "VolatileImage no acelerada";
+                } else if (!draws(vi, gc)) {
+                    r.problem = "VolatileImage no dibuja bien";
+                } else {
+                    r.fillMpix = fill(vi, gc);
+                    r.sprites = blit(vi, gc, gc);
+                    r.accelerated = r.fillMpix > 0 && r.sprites > 0;
+                    if (!r.accelerated) r.problem = "superficie perdida durante la medida";
+                }
+                vi.flush();
+            } catch (RuntimeException e) {
+                r.problem = "error: " + e;
+            }
+            if (!r.accelerated) {
+                // Sin aceleración fiable: Swing pinta en un buffer en memoria en vez de una VolatileImage
+                System.setProperty("swing.volatileImageBufferEnabled", "false");
+            }
+        }
+        result = r;
+        return r;
+    }
+
+    // Último resultado, o null si no se ha hecho la prueba.
+    public static Result result() { return result; }
+
+    // true salvo que la prueba haya visto que la aceleración no funciona.
+    public static boolean accelerated() {
+        Result r = result;
+        return r == null || r.accelerated;
+    }
+
+    // Nombre del pipeline a partir de la clase de la configuración gráfica.
+    static String pipelineName(GraphicsConfiguration gc) {
+        String c = gc.getClass().getName();
+        if (c.contains(".xr.")) return "XRender";
+        if (c.contains(".opengl.")) return "OpenGL";
+        if (c.contains(".d3d.")) return "Direct3D";
+        if (c.contains(".metal.")) return "Metal";
+        if (c.contains("X11")) return "X11 (software)";
+        if (c.contains("Win32")) return "GDI (software)";
+        return c;
+    }
+
+    private static String requested() {
+        return System.getProperty("game.pipeline", "auto").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) System.setProperty(key, value);
+    }
+
+    // Rellena la superficie con un color conocido y lo lee de vuelta.
+    private static boolean draws(VolatileImage vi, GraphicsConfiguration gc) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            vi.validate(gc);
+            Graphics2D g = vi.createGraphics();
+            try {
+                g.setColor(new Color(CHECK));
+                g.fillRect(0, 0, SIZE, SIZE);
+            } finally {
+                g.dispose();
+            }
+            int rgb = vi.getSnapshot().getRGB(SIZE / 2, SIZE / 2);
+            if (vi.contentsLost()) continue;
+            return close(rgb, CHECK);
+        }
+        return false;
+    }
+
+    // Igual salvo por el redondeo de pantallas de 16 bits.
+    private static boolean close(int a, int b) {
+        for (int shift = 0; shift < 24; shift += 8) {
+            if (Math.abs((a >> shift & 0xFF) - (b >> shift & 0xFF)) > 8) return false;
+        }
+        return true;
+    }
+
+    // Megapíxeles por segundo rellenando la superficie entera con colores alternos.
+    // Devuelve 0 si una VolatileImage pierde el contenido a medias.
+    private static double fill(Image target, GraphicsConfiguration gc) {
+        Color[] colors = { Color.RED, Color.GREEN, Color.BLUE, Color.BLACK };
+        long ops = 0;
+        long t0 = System.nanoTime();
+        do {
+            Graphics2D g = graphics(target, gc);
+            try {
+                for (int i = 0; i < 20; i++, ops++) {
+                    g.setColor(colors[(int) (ops & 3)]);
+                    g.fillRect(0, 0, SIZE, SIZE);
+                }
+            } finally {
+                g.dispose();
+            }
+        } while (System.nanoTime() - t0 < MEASURE_NANOS);
+        long elapsed = finish(target, gc, t0);
+        if (elapsed < 0) return 0;
+        return ops * (double) SIZE * SIZE / elapsed * 1e3;
+    }
+
+    // Sprites de bola (translúcidos, con antialiasing) copiados por segundo.
+    private static double blit(Image target, GraphicsConfiguration gc, GraphicsConfiguration spriteGc) {
+        BufferedImage sprite = new SpriteCache(1 << 20, 4).get(spriteGc, SPRITE, 0xFFE0A020);
+        long ops = 0;
+        long t0 = System.nanoTime();
+        do {
+            Graphics2D g = graphics(target, gc);
+            try {
+                for (int i = 0; i < 2000; i++, ops++) {
+                    int k = (int) (ops * 7919 % ((SIZE - SPRITE) * (SIZE - SPRITE)));
+                    g.drawImage(sprite, k % (SIZE - SPRITE), k / (SIZE - SPRITE), null);
+                }
+            } finally {
+                g.dispose();
+            }
+        } while (System.nanoTime() - t0 < MEASURE_NANOS);
+        long elapsed = finish(target, gc, t0);
+        if (elapsed < 0) return 0;
+        return ops / (elapsed / 1e9);
+    }
+
+    private static Graphics2D graphics(Image target, GraphicsConfiguration gc) {
+        if (target instanceof VolatileImage) ((VolatileImage) target).validate(gc);
+        return (Graphics2D) target.getGraphics();
+    }
+
+    // Espera a que la tarjeta termine lo encolado (leer la superficie obliga a ello) y
+    // devuelve el tiempo total transcurrido, o -1 si se ha perdido el contenido.
+    private static long finish(Image target, GraphicsConfiguration gc, long t0) {
+        if (target instanceof VolatileImage) {
+            VolatileImage vi = (VolatileImage) target;
+            vi.getSnapshot();
+            if (vi.contentsLost()) return -1;
+        }
+        return System.nanoTime() - t0;
+    }
+}
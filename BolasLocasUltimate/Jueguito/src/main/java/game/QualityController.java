@@ -0,0 +1,102 @@
+package game;
+
+import java.util.Locale;
+
+// Ajusta la calidad del dibujado al tiempo que se tarda en pintar cada frame.
+// Lleva una media móvil del tiempo de pintado: si pasa del presupuesto durante
+// DOWN_FRAMES frames seguidos baja un nivel; si se queda por debajo de la mitad
+// durante el tiempo de espera de subida, sube uno. Si al subir hay que volver a bajar
+// enseguida, la espera para el siguiente intento se duplica, así no oscila entre dos niveles.
+// Un frame que tarda más de SPIKE veces el presupuesto baja de nivel en el acto: con
+// 100.000 bolas el primer frame en calidad alta puede durar más de un segundo.
+// Solo lo usa el hilo que pinta (el EDT o el del ActiveRenderer).
+//
+// -Dgame.quality=alta|media|baja|mínima fija un nivel; -Dgame.frameBudgetMs cambia el
+// presupuesto (por defecto el 75% de un refresco de la pantalla).
+public class QualityController {
+    static final int DOWN_FRAMES = 10;
+    static final int UP_FRAMES = 120;     // Unos 2 s a 60 Hz
+    static final int MAX_UP_FRAMES = 3600;
+    static final int SPIKE = 4;
+
+    private final long budgetNanos;
+    private final boolean automatic;
+    private RenderQuality level;
+    private double average;     // Media del tiempo de pintado en este nivel (0 = sin datos)
+    private int over;
+    private int under;
+    private int upFrames = UP_FRAMES;
+    private long sinceUp = Long.MAX_VALUE; // Frames desde la última subida
+    private int changes;
+
+    // Constructor.
+    // @param budgetNanos Tiempo de pintado máximo por frame.
+    // @param fixed Nivel fijo, o null para ajustarlo automáticamente.
+    public QualityController(long budgetNanos, RenderQuality fixed) {
+        this.budgetNanos = budgetNanos;
+        this.automatic = fixed == null;
+        this.level = fixed != null ? fixed : RenderQuality.HIGH;
+    }
+
+    // Crea el controlador con la configuración de las propiedades del sistema.
+    public static QualityController fromSystemProperties() {
+        String ms = System.getProperty("game.frameBudgetMs");
+        long budget = ms != null
+                ? (long) (Double.parseDouble(ms) * 1e6)
+                : (long) (0.75e9 / GameLoop.displayRefreshRate());
+        return new QualityController(budget, parse(System.getProperty("game.quality")));
+    }
+
+    // Nivel con el que hay que pintar el siguiente frame.
+    public RenderQuality level() { return level; }
+
+    // Anota lo que ha tardado en pintarse un frame y cambia de nivel si hace falta.
+    // @param nanos Duración del pintado.
+    public void record(long nanos) {
+        if (!automatic) return;
+        if (sinceUp != Long.MAX_VALUE) sinceUp++;
+        average = average == 0 ? nanos : average * 0.8 + nanos * 0.2;
+        if (average > budgetNanos) {
+            under = 0;
+            boolean spike = nanos > budgetNanos * SPIKE;
+            if ((++over >= DOWN_FRAMES || spike) && level != RenderQuality.MINIMAL) {
+                // Recién subido y ya no llega: la próxima vez se espera más
+                if (sinceUp < upFrames) upFrames = Math.min(upFrames * 2, MAX_UP_FRAMES);
+                change(level.lower());
+            }
+        } else if (average < budgetNanos / 2) {
+            over = 0;
+            if (++under >= upFrames && level != RenderQuality.HIGH) {
+                change(level.higher());
+                sinceUp = 0;
+            }
+        } else {
+            over = 0;
+            under = 0;
+        }
+    }
+
+    public long getBudgetNanos() { return budgetNanos; }
+    public boolean isAutomatic() { return automatic; }
+    // Cambios de nivel desde el arranque.
+    public int getChanges() { return changes; }
+
+    private void change(RenderQuality next) {
+        level = next;
+        average = 0; // Se mide de nuevo con el nivel nuevo
+        over = 0;
+        under = 0;
+        changes++;
+    }
+
+    // Nivel indicado en -Dgame.quality, o null si es "auto" o no se reconoce.
+    private static RenderQuality parse(String name) {
+        if (name == null) return null;
+        String n = name.trim().toLowerCase(Locale.ROOT);
+        for (RenderQuality q : RenderQuality.values()) {
+            if (q.label.equals(n) || q.name().toLowerCase(Locale.ROOT).equals(n)) return q;
+        }
+        if (!n.equals("auto")) System.err.println("Calidad desconocida: " + name + ", se ajustará sola");
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package game;
+
+// Niveles de calidad del dibujado de las bolas, de mejor a más barato.
+// Bajar de nivel reduce el trabajo por bola y el número de sprites distintos:
+// con colores y tamaños redondeados, cientos de miles de bolas comparten unos pocos
+// cientos de imágenes y la SpriteCache deja de fallar en cada frame.
+public enum RenderQuality {
+    // Sprites con antialiasing y borde negro, color y tamaño exactos.
+    HIGH("alta", true, true, 0, 1),
+    // Sin borde, 3 bits por canal (512 colores) y tamaños pares.
+    MEDIUM("media", true, false, 5, 2),
+    // Además sin antialiasing y con tamaños múltiplos de 4.
+    LOW("baja", false, false, 5, 4),
+    // Sin sprites: cada bola es un cuadrado de su color con fillRect.
+    MINIMAL("mínima", false, false, 5, 1);
+
+    public final String label;
+    public final boolean antialias;
+    public final boolean outline;
+    final int colorShift; // Bits que se descartan de cada canal
+    final int sizeStep;
+
+    RenderQuality(String label, boolean antialias, boolean outline, int colorShift, int sizeStep) {
+        this.label = label;
+        this.antialias = antialias;
+        this.outline = outline;
+        this.colorShift = colorShift;
+        this.sizeStep = sizeStep;
+    }
+
+    // true si las bolas se copian desde la SpriteCache.
+    public boolean usesSprites() { return this != MINIMAL; }
+
+    // Color redondeado a los bits de este nivel (al centro de cada escalón).
+    public int color(int argb) {
+        if (colorShift == 0) return argb;
+        int keep = (0xFF << colorShift) & 0xFF;
+        int mask = 0xFF000000 | keep << 16 | keep << 8 | keep;
+        int half = 1 << (colorShift - 1);
+        return (argb & mask) | half << 16 | half << 8 | half;
+    }
+
+    // Diámetro redondeado al paso de este nivel.
+    public int size(int size) {
+        if (sizeStep == 1) return size;
+        return Math.max(sizeStep, (size + sizeStep / 2) / sizeStep * sizeStep);
+    }
+
+    // Nivel siguiente más barato, o este si ya es el último.
+    public RenderQuality lower() {
+        return this == MINIMAL ? this : values()[ordinal() + 1];
+    }
+
+    // Nivel siguiente más caro, o este si ya es el mejor.
+    public RenderQuality higher() {
+        return this == HIGH ? this : values()[ordinal() - 1];
+    }
+}
@@ -0,0 +1,52 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Recursos de dibujo compartidos por todos los paneles: fuentes, colores y métricas.
+// Se crean una sola vez, así que pintar un frame no reserva memoria por ellos.
+// Las métricas se piden una vez por fuente con el mismo contexto de texto que usa
+// Swing por defecto (sin antialiasing de texto ni métricas fraccionarias).
+// Solo se usan desde el hilo que pinta (el EDT o el del ActiveRenderer, nunca a la vez).
+public final class RenderResources {
+    // Juego
+    public static final Font HUD = new Font("Arial", Font.BOLD, 24);
+    public static final Font STATS = new Font("Arial", Font.PLAIN, 14);
+    public static final Font BANNER = new Font("Arial", Font.BOLD, 36);
+    public static final Color SHADE = new Color(0, 0, 0, 180);
+
+    // Menú principal
+    public static final Font MENU_TITLE = new Font("Impact", Font.BOLD, 64);
+    public static final Font MENU_BUTTON = new Font("Arial", Font.BOLD, 24);
+
+    // Configuración y final de partida
+    public static final Font PANEL_TITLE = new Font("Arial", Font.BOLD, 32);
+    public static final Font LABEL = new Font("Arial", Font.PLAIN, 24);
+    public static final Font SIGN = new Font("Arial", Font.BOLD, 28);
+    public static final Font END_MESSAGE = new Font("Arial", Font.BOLD, 48);
+    public static final Font SCORE_ROW = new Font(Font.MONOSPACED, Font.PLAIN, 22); // Columnas alineadas
+
+    private static final Map<Font, FontMetrics> METRICS = new IdentityHashMap<>();
+    private static Graphics2D measure;
+
+    private RenderResources() {
+    }
+
+    // Métricas de una fuente, calculadas la primera vez que se piden.
+    public static synchronized FontMetrics metrics(Font font) {
+        FontMetrics fm = METRICS.get(font);
+        if (fm == null) {
+            if (measure == null) measure = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+            fm = measure.getFontMetrics(font);
+            METRICS.put(font, fm);
+        }
+        return fm;
+    }
+
+    // Ancho de un texto con la fuente indicada.
+    public static int width(Font font, String text) {
+        return metrics(font).stringWidth(text);
+    }
+}
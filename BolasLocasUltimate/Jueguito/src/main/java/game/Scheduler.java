@@ -0,0 +1,115 @@
+package game;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hilos del juego en un único sitio, para que su número no crezca al ir y volver
+// entre el menú y las partidas.
+// - Tareas periódicas (bucles de juego y del menú, muestreo de métricas): un pool
+//   compartido de hilos demonio. Cada bucle es una tarea programada que se cancela,
+//   no un ejecutor propio.
+// - Tareas cortas o que bloquean en E/S (carga de recursos): hilos virtuales si la JVM
+//   los tiene (Java 21+), si no un pool compartido que crece y encoge según la carga.
+// - Hilos de larga duración (mezclador, música, dibujado activo): hilos de plataforma
+//   con nombre. El audio y el intercambio de páginas bloquean en código nativo, que con
+//   un hilo virtual dejaría ocupado uno de los pocos hilos portadores.
+public final class Scheduler {
+    private static final Scheduler SHARED = new Scheduler();
+
+    private final ScheduledThreadPoolExecutor timers;
+    private final ExecutorService workers;
+    private final boolean virtual;
+    private final AtomicInteger liveThreads = new AtomicInteger();
+
+    private Scheduler() {
+        timers = new ScheduledThreadPoolExecutor(Math.min(2, Runtime.getRuntime().availableProcessors()),
+                daemons("game-timer-"));
+        timers.setRemoveOnCancelPolicy(true); // Los bucles cancelados no se quedan en la cola
+        ExecutorService v = virtualExecutor();
+        virtual = v != null;
+        workers = v != null ? v : Executors.newCachedThreadPool(daemons("game-worker-"));
+    }
+
+    // Planificador compartido por todo el juego.
+    public static Scheduler shared() { return SHARED; }
+
+    // Ejecuta una tarea periódica hasta que se cancele el resultado.
+    // Una ejecución que se retrasa no se solapa con la siguiente.
+    // @param task Tarea.
+    // @param delay Espera antes de la primera ejecución.
+    // @param period Periodo entre ejecuciones.
+    // @param unit Unidad de delay y period.
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long delay, long period, TimeUnit unit) {
+        return timers.scheduleAtFixedRate(guard(task), delay, period, unit);
+    }
+
+    // Ejecutor para tareas cortas o que bloquean en E/S.
+    public Executor workers() { return workers; }
+
+    // true si workers() usa hilos virtuales.
+    public boolean isVirtual() { return virtual; }
+
+    // Crea un hilo demonio de larga duración, sin arrancar: quien lo pide suele guardarlo
+    // antes en un campo que el propio hilo consulta.
+    // @param name Nombre del hilo.
+    // @param priority Prioridad (Thread.NORM_PRIORITY si no importa).
+    // @param body Cuerpo del hilo; el hilo termina cuando termina body.
+    public Thread newThread(String name, int priority, Runnable body) {
+        Thread t = new Thread(() -> {
+            liveThreads.incrementAndGet();
+            try {
+                body.run();
+            } finally {
+                liveThreads.decrementAndGet();
+            }
+        }, name);
+        t.setDaemon(true);
+        t.setPriority(priority);
+        return t;
+    }
+
+    // Hilos de larga duración vivos creados con newThread.
+    public int getLiveThreads() { return liveThreads.get(); }
+
+    // Tareas periódicas programadas ahora mismo.
+    public int getScheduledTasks() { return timers.getQueue().size(); }
+
+    // Un error en una ejecución cancelaría la tarea periódica sin avisar: se informa y se sigue.
+    private static Runnable guard(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en tarea periódica: " + e);
+                e.printStackTrace();
+            }
+        };
+    }
+
+    private static ThreadFactory daemons(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() si existe; se busca por reflexión
+    // porque el proyecto compila para Java 17.
+    private static ExecutorService virtualExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
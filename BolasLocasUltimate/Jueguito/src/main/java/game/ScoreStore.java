@@ -0,0 +1,607 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32C;
+
+// Récords y estadísticas de las partidas terminadas, guardados entre ejecuciones.
+// En disco es un registro binario al que solo se añade, mapeado en memoria: cada partida
+// es un registro de RECORD bytes con su CRC, y el byte de tipo se escribe el último, así
+// que un registro a medias (corte de luz, proceso matado) se detecta al abrir y se descarta.
+// En memoria hay un índice por configuración (bolas y tiempo elegidos en ConfigPanel) con
+// las TOP mejores partidas y los totales, así que consultar una clasificación no lee disco.
+// Cada COMPACT_RECORDS partidas el registro se reescribe con un resumen por configuración
+// más sus mejores partidas: el fichero y el tiempo de arranque no crecen con el número de
+// partidas jugadas, aunque sean millones.
+// La compactación escribe una generación nueva en otro fichero (scores.log.1, .2...) y la
+// da por buena escribiendo su número en la cabecera en último lugar. Nunca se renombra ni se
+// trunca un fichero que siga mapeado (en Windows fallaría, y Java no permite desmapearlo):
+// las generaciones viejas se borran en cuanto se puede, como tarde en el siguiente arranque,
+// que abre la generación más nueva con la cabecera completa. Si algo falla al compactar o al
+// escribir, el hilo sigue con el fichero actual y no deja de guardar.
+// Abrir, escribir y compactar lo hace un único hilo propio; record() solo actualiza el
+// índice y encola, así que el EDT nunca espera al disco.
+//
+// Formato (little-endian): cabecera "BLSC", versión (1), relleno (3) y generación (8), y
+// registros de RECORD bytes: tipo (1), marcas (1), relleno (2), bolas (4), tiempo (4) y
+//   SESSION: tiempo restante (4), aciertos (4), fallos (4), fecha en ms (8)
+//   SUMMARY: partidas (4), ganadas (4), aciertos (8), fallos (8)
+// y CRC32C de los bytes 1 a 35 (4), más 4 de relleno. Tras el último registro hay ceros.
+// -Dgame.scores cambia el fichero (~/.bolaslocas/scores.log) y -Dgame.scores.top el
+// número de partidas por clasificación (10).
+public final class ScoreStore {
+    static final int MAGIC = 0x43534c42; // "BLSC" en little-endian
+    static final byte VERSION = 1;
+    static final int HEADER = 16;
+    static final int RECORD = 40;
+    static final byte SESSION = 1;
+    static final byte SUMMARY = 2;
+    static final int WON = 1;        // Marcas de SESSION
+    static final int COLLISIONS = 2;
+    static final int COUNTED = 4;    // Ya incluida en el SUMMARY de su configuración
+    static final int COMPACT_RECORDS = 100_000;
+    private static final long INITIAL_MAP = 1 << 20;
+
+    private static volatile ScoreStore shared;
+
+    // Resultado de una partida.
+    public static final class Entry {
+        public final int balls;
+        public final int time;       // Tiempo inicial (s)
+        public final int timeLeft;
+        public final int hits;
+        public final int misses;
+        public final boolean won;
+        public final boolean collisions;
+        public final long date;      // System.currentTimeMillis() al terminar
+
+        public Entry(int balls, int time, int timeLeft, int hits, int misses, boolean won, boolean collisions, long date) {
+            this.balls = balls;
+            this.time = time;
+            this.timeLeft = timeLeft;
+            this.hits = hits;
+            this.misses = misses;
+            this.won = won;
+            this.collisions = collisions;
+            this.date = date;
+        }
+
+        // Fracción de clics que acertaron (0 sin clics).
+        public double accuracy() {
+            int clicks = hits + misses;
+            return clicks == 0 ? 0 : (double) hits / clicks;
+        }
+
+        // true si esta partida va por delante de o en la clasificación: primero las ganadas,
+        // después más tiempo restante, más aciertos, mejor puntería y, por último, la más antigua.
+        boolean beats(Entry o) {
+            if (won != o.won) return won;
+            if (timeLeft != o.timeLeft) return timeLeft > o.timeLeft;
+            if (hits != o.hits) return hits > o.hits;
+            int c = Double.compare(accuracy(), o.accuracy());
+            if (c != 0) return c > 0;
+            return date < o.date;
+        }
+    }
+
+    // Clasificación de una configuración en un momento dado. No cambia al añadir partidas.
+    public static final class Leaderboard {
+        public final int balls;
+        public final int time;
+        public final List<Entry> top; // De mejor a peor
+        public final long games;
+        public final long wins;
+        public final long hits;
+        public final long misses;
+        public final boolean complete; // false si aún se estaba cargando el fichero
+
+        Leaderboard(int balls, int time, List<Entry> top, long games, long wins, long hits, long misses, boolean complete) {
+            this.balls = balls;
+            this.time = time;
+            this.top = top;
+            this.games = games;
+            this.wins = wins;
+            this.hits = hits;
+            this.misses = misses;
+            this.complete = complete;
+        }
+
+        // Puesto (desde 0) de la partida en la clasificación, o -1 si no ha entrado.
+        public int rankOf(Entry e) {
+            for (int i = 0; i < top.size(); i++) {
+                if (top.get(i) == e) return i;
+            }
+            return -1;
+        }
+
+        public double accuracy() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    // Mejores partidas y totales de una configuración.
+    private static final class Board {
+        final int balls;
+        final int time;
+        Entry[] top;
+        int size;
+        long games;
+        long wins;
+        long hits;
+        long misses;
+
+        Board(int balls, int time, int capacity) {
+            this.balls = balls;
+            this.time = time;
+            top = new Entry[capacity];
+        }
+
+        // Mete la partida en su sitio si entra entre las mejores (O(TOP)).
+        void offer(Entry e) {
+            int i = size;
+            if (i == top.length) {
+                if (!e.beats(top[i - 1])) return;
+                i--;
+            } else {
+                size++;
+            }
+            while (i > 0 && e.beats(top[i - 1])) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = e;
+        }
+
+        void count(Entry e) {
+            games++;
+            if (e.won) wins++;
+            hits += e.hits;
+            misses += e.misses;
+        }
+
+        Leaderboard snapshot(boolean complete) {
+            return new Leaderboard(balls, time, Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(top, size))),
+                    games, wins, hits, misses, complete);
+        }
+    }
+
+    private final Path file;
+    private final int topSize;
+    private final int compactRecords;
+    private final Map<Long, Board> boards = new HashMap<>(); // Protegido por this
+    private final LinkedBlockingQueue<Entry> pending = new LinkedBlockingQueue<>();
+    // Marca de fin de la cola. close() no interrumpe al hilo: un FileChannel se cierra
+    // solo si el hilo que lo usa recibe una interrupción.
+    private static final Entry STOP = new Entry(0, 0, 0, 0, 0, false, false, 0);
+    private final Thread writer;
+    private volatile boolean loaded;
+    private volatile boolean closed;
+    private volatile int written;    // Registros escritos en el fichero actual
+    private volatile long generation;
+
+    // Solo el hilo del almacén
+    private Path current;            // Fichero de la generación actual
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int end;                 // Posición del siguiente registro
+    private int compactAt;           // Registros a partir de los que toca compactar
+    private final CRC32C crc = new CRC32C();
+    private final List<Entry> early = new ArrayList<>(); // Registradas antes de terminar de cargar
+
+    // Abre (o crea) el almacén en segundo plano.
+    // @param file Fichero del registro.
+    // @param topSize Partidas por clasificación.
+    // @param compactRecords Registros a partir de los que se compacta el fichero.
+    public ScoreStore(Path file, int topSize, int compactRecords) {
+        this.file = file;
+        this.topSize = Math.max(1, topSize);
+        this.compactRecords = Math.max(1, compactRecords);
+        compactAt = this.compactRecords;
+        current = file;
+        writer = Scheduler.shared().newThread("score-store", Thread.NORM_PRIORITY - 1, this::run);
+        writer.start();
+    }
+
+    // Almacén de la aplicación, con el fichero y el tamaño de -Dgame.scores y -Dgame.scores.top.
+    // La primera llamada empieza a cargarlo en segundo plano.
+    public static ScoreStore shared() {
+        ScoreStore s = shared;
+        if (s == null) {
+            synchronized (ScoreStore.class) {
+                s = shared;
+                if (s == null) {
+                    String home = System.getProperty("user.home", ".");
+                    Path f = Paths.get(System.getProperty("game.scores", Paths.get(home, ".bolaslocas", "scores.log").toString()));
+                    shared = s = new ScoreStore(f, Integer.getInteger("game.scores.top", 10), COMPACT_RECORDS);
+                }
+            }
+        }
+        return s;
+    }
+
+    // Anota una partida terminada. Actualiza la clasificación en el acto y la escritura
+    // queda encolada para el hilo del almacén.
+    public void record(Entry e) {
+        synchronized (this) {
+            Board b = board(e.balls, e.time);
+            b.offer(e);
+            b.count(e);
+            if (!loaded) early.add(e);
+            // Dentro del cerrojo: compact() vacía la cola a la vez que copia el índice
+            if (!closed) pending.add(e);
+        }
+    }
+
+    // Clasificación actual de una configuración. Mientras el fichero se está cargando
+    // solo incluye las partidas de esta ejecución.
+    public synchronized Leaderboard leaderboard(int balls, int time) {
+        Board b = boards.get(key(balls, time));
+        return b != null ? b.snapshot(loaded) : new Leaderboard(balls, time, Collections.emptyList(), 0, 0, 0, 0, loaded);
+    }
+
+    public boolean isLoaded() { return loaded; }
+    public Path getFile() { return file; }
+    // Generación del fichero en uso (0 hasta la primera compactación).
+    public long getGeneration() { return generation; }
+    // Registros en el fichero desde la última compactación.
+    public int getRecords() { return written; }
+    // Partidas pendientes de escribir.
+    public int getPending() { return pending.size(); }
+
+    // Escribe lo pendiente y cierra el fichero. Espera como mucho timeoutMillis.
+    public void close(long timeoutMillis) {
+        synchronized (this) {
+            if (!closed) pending.add(STOP); // Detrás de todo lo pendiente
+            closed = true;
+        }
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Cierra el almacén compartido si se ha llegado a abrir.
+    public static void closeShared(long timeoutMillis) {
+        ScoreStore s = shared;
+        if (s != null) s.close(timeoutMillis);
+    }
+
+    private void run() {
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudieron cargar los récords de " + file + ": " + e.getMessage());
+            closeFile();
+        }
+        try {
+            while (true) {
+                Entry e;
+                try {
+                    e = pending.take();
+                } catch (InterruptedException ie) {
+                    continue;
+                }
+                if (e == STOP) break; // close(): ya se ha escrito todo lo anterior
+                if (channel == null) continue; // Sin fichero: solo en memoria
+                try {
+                    append(e);
+                    if (written >= compactAt) compact();
+                } catch (IOException | RuntimeException ex) {
+                    System.err.println("Error guardando los récords en " + current + ": " + ex.getMessage());
+                    reopen();
+                }
+            }
+        } finally {
+            closeFile();
+        }
+    }
+
+    // Vuelve a abrir el fichero actual tras un error de escritura. Si tampoco se puede,
+    // las partidas siguientes solo quedan en memoria.
+    private void reopen() {
+        closeFile();
+        try {
+            channel = FileChannel.open(current, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map(Math.max(INITIAL_MAP, channel.size()));
+            end = scan(new HashMap<>());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo reabrir " + current + ", los récords nuevos no se guardarán: " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    // Lee el fichero y construye el índice; después incorpora lo registrado mientras tanto.
+    private void load() throws IOException {
+        Map<Long, Board> fresh = new HashMap<>();
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            // La generación más nueva con la cabecera completa; las que no la tienen son
+            // compactaciones que no llegaron a terminar
+            long gen = 0;
+            for (long g : generations()) {
+                long header = headerGeneration(generationFile(g));
+                if (header == g) {
+                    gen = g;
+                    break;
+                }
+                if (g == 0) throw new IOException("no es un fichero de récords");
+                delete(generationFile(g));
+            }
+            current = generationFile(gen);
+            generation = gen;
+            channel = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            map(Math.max(INITIAL_MAP, size));
+            if (size == 0) {
+                map.putInt(0, MAGIC).put(4, VERSION);
+                map.putLong(8, gen);
+                end = HEADER;
+            } else {
+                end = scan(fresh);
+            }
+            for (long g : generations()) {
+                if (g < gen) delete(generationFile(g)); // Ya compactadas en la actual
+            }
+        } finally {
+            // Aunque falle, las partidas de esta ejecución siguen en el índice
+            synchronized (this) {
+                for (Entry e : early) {
+                    Board b = fresh.computeIfAbsent(key(e.balls, e.time), k -> new Board(e.balls, e.time, topSize));
+                    b.offer(e);
+                    b.count(e);
+                }
+                early.clear();
+                boards.clear();
+                boards.putAll(fresh);
+                loaded = true;
+            }
+        }
+    }
+
+    // Recorre los registros hasta el primero vacío o dañado y devuelve su posición.
+    private int scan(Map<Long, Board> into) {
+        int pos = HEADER;
+        int records = 0;
+        while (pos + RECORD <= map.capacity()) {
+            byte type = map.get(pos);
+            if (type == 0) break;
+            if ((type != SESSION && type != SUMMARY) || checksum(pos) != map.getInt(pos + 36)) {
+                // Registro a medias: se borra el resto para que no quede nada detrás
+                for (int i = pos; i < map.capacity(); i++) map.put(i, (byte) 0);
+                break;
+            }
+            int flags = map.get(pos + 1);
+            int balls = map.getInt(pos + 4);
+            int time = map.getInt(pos + 8);
+            Board b = into.computeIfAbsent(key(balls, time), k -> new Board(balls, time, topSize));
+            if (type == SUMMARY) {
+                b.games += map.getInt(pos + 12);
+                b.wins += map.getInt(pos + 16);
+                b.hits += map.getLong(pos + 20);
+                b.misses += map.getLong(pos + 28);
+            } else {
+                Entry e = new Entry(balls, time, map.getInt(pos + 12), map.getInt(pos + 16), map.getInt(pos + 20),
+                        (flags & WON) != 0, (flags & COLLISIONS) != 0, map.getLong(pos + 24));
+                b.offer(e);
+                if ((flags & COUNTED) == 0) b.count(e);
+            }
+            pos += RECORD;
+            records++;
+        }
+        written = records;
+        return pos;
+    }
+
+    private void append(Entry e) throws IOException {
+        if (end + RECORD > map.capacity()) map((long) map.capacity() * 2);
+        putSession(map, end, e, 0);
+        end += RECORD;
+        written++;
+    }
+
+    // Escribe una partida; el tipo va al final para que el registro solo cuente si está entero.
+    private void putSession(ByteBuffer m, int pos, Entry e, int extraFlags) {
+        int flags = (e.won ? WON : 0) | (e.collisions ? COLLISIONS : 0) | extraFlags;
+        m.put(pos + 1, (byte) flags);
+        m.putShort(pos + 2, (short) 0);
+        m.putInt(pos + 4, e.balls);
+        m.putInt(pos + 8, e.time);
+        m.putInt(pos + 12, e.timeLeft);
+        m.putInt(pos + 16, e.hits);
+        m.putInt(pos + 20, e.misses);
+        m.putLong(pos + 24, e.date);
+        seal(m, pos, SESSION);
+    }
+
+    private void putSummary(ByteBuffer m, int pos, Board b) {
+        m.put(pos + 1, (byte) 0);
+        m.putShort(pos + 2, (short) 0);
+        m.putInt(pos + 4, b.balls);
+        m.putInt(pos + 8, b.time);
+        m.putInt(pos + 12, (int) Math.min(b.games, Integer.MAX_VALUE));
+        m.putInt(pos + 16, (int) Math.min(b.wins, Integer.MAX_VALUE));
+        m.putLong(pos + 20, b.hits);
+        m.putLong(pos + 28, b.misses);
+        seal(m, pos, SUMMARY);
+    }
+
+    private void seal(ByteBuffer m, int pos, byte type) {
+        m.putInt(pos + 36, checksum(m, pos));
+        m.put(pos, type);
+    }
+
+    private int checksum(int pos) { return checksum(map, pos); }
+
+    private int checksum(ByteBuffer m, int pos) {
+        ByteBuffer view = m.duplicate();
+        view.limit(pos + 36).position(pos + 1);
+        crc.reset();
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    // Reescribe el registro con un SUMMARY y las mejores partidas de cada configuración
+    // en la generación siguiente, que pasa a ser la actual cuando su cabecera está completa.
+    // La copia del índice ya incluye las partidas encoladas, así que se sacan de la cola; si
+    // la compactación falla se escriben en el fichero actual y se reintenta más adelante.
+    private void compact() throws IOException {
+        List<Board> copy = new ArrayList<>();
+        List<Entry> drained = new ArrayList<>();
+        synchronized (this) {
+            pending.drainTo(drained);
+            if (drained.remove(STOP)) pending.add(STOP); // Tras close() no se encola nada más
+            for (Board b : boards.values()) {
+                Board c = new Board(b.balls, b.time, topSize);
+                c.top = Arrays.copyOf(b.top, b.top.length);
+                c.size = b.size;
+                c.games = b.games;
+                c.wins = b.wins;
+                c.hits = b.hits;
+                c.misses = b.misses;
+                copy.add(c);
+            }
+        }
+        long next = generation + 1;
+        Path target = generationFile(next);
+        int records = 0;
+        for (Board b : copy) records += 1 + b.size;
+        long size = Math.max(INITIAL_MAP, HEADER + (long) records * RECORD * 2);
+        FileChannel ch = null;
+        try {
+            ch = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            m.order(ByteOrder.LITTLE_ENDIAN);
+            m.putInt(0, MAGIC).put(4, VERSION); // Generación 0 en la cabecera: todavía no vale
+            int pos = HEADER;
+            for (Board b : copy) {
+                putSummary(m, pos, b);
+                pos += RECORD;
+                for (int i = 0; i < b.size; i++) {
+                    putSession(m, pos, b.top[i], COUNTED);
+                    pos += RECORD;
+                }
+            }
+            m.force();
+            m.putLong(8, next); // A partir de aquí la generación nueva es la buena
+            m.force();
+            Path old = current;
+            closeFile();
+            channel = ch;
+            map = m;
+            current = target;
+            generation = next;
+            end = pos;
+            written = records;
+            compactAt = records + compactRecords;
+            delete(old); // En Windows falla mientras siga mapeado: se borra al arrancar
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo compactar " + current + ", se sigue con el fichero actual: " + e.getMessage());
+            if (ch != null && ch != channel) {
+                try {
+                    ch.close();
+                } catch (IOException ignored) {
+                    // Ya se ha avisado
+                }
+                delete(target);
+            }
+            compactAt = written + compactRecords;
+            for (Entry e2 : drained) append(e2);
+        }
+    }
+
+    // Fichero de una generación: el propio file para la 0 y file.N para las siguientes.
+    private Path generationFile(long g) {
+        return g == 0 ? file : file.resolveSibling(file.getFileName() + "." + g);
+    }
+
+    // Generaciones presentes en disco, de la más nueva a la más vieja.
+    private List<Long> generations() throws IOException {
+        List<Long> gens = new ArrayList<>();
+        String name = file.getFileName().toString();
+        Path dir = file.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, name + "*")) {
+            for (Path p : ds) {
+                String n = p.getFileName().toString();
+                if (n.equals(name)) {
+                    gens.add(0L);
+                } else if (n.length() > name.length() + 1 && n.charAt(name.length()) == '.') {
+                    try {
+                        gens.add(Long.parseLong(n.substring(name.length() + 1)));
+                    } catch (NumberFormatException ignored) {
+                        // Otro fichero con el mismo prefijo
+                    }
+                }
+            }
+        }
+        gens.sort(Collections.reverseOrder());
+        return gens;
+    }
+
+    // Generación escrita en la cabecera (0 si el fichero está vacío), o -1 si no es un
+    // fichero de récords o no se puede leer. Se lee sin mapear, para poder borrarlo después.
+    private static long headerGeneration(Path p) {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            if (ch.size() == 0) return 0;
+            ByteBuffer h = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            while (h.hasRemaining() && ch.read(h) >= 0) {
+                // Sigue leyendo
+            }
+            if (h.position() < HEADER || h.getInt(0) != MAGIC || h.get(4) != VERSION) return -1;
+            return h.getLong(8);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Borra un fichero si se puede; si no (mapeado en Windows), se intentará al arrancar.
+    private static void delete(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignored) {
+            // Se queda hasta el siguiente arranque
+        }
+    }
+
+    private void map(long size) throws IOException {
+        if (size > Integer.MAX_VALUE - RECORD) throw new IOException("el fichero de récords es demasiado grande");
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void closeFile() {
+        if (channel == null) return;
+        try {
+            map.force();
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo cerrar " + file + ": " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    private Board board(int balls, int time) {
+        return boards.computeIfAbsent(key(balls, time), k -> new Board(balls, time, topSize));
+    }
+
+    private static long key(int balls, int time) {
+        return (long) balls << 32 | (time & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,194 @@
+package game;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Codificación de las bolas en las instantáneas de red: GameServer codifica y NetClient
+// decodifica. Los dos extremos guardan la misma referencia, la última instantánea enviada,
+// con la posición cuantizada de cada bola y lo que avanzó desde la anterior, y cada
+// instantánea nueva se codifica contra ella:
+//   - Las bolas se identifican por su índice en el BallStore, que no cambia al añadir al
+//     fondo ni al quitar del frente. Solo viajan el desplazamiento de first() y el número
+//     de bolas: las que faltan por delante se han quitado.
+//   - Las bolas nuevas (al fondo) van completas: posición, tamaño y color.
+//   - De las demás solo va el error de suponer que han avanzado lo mismo que la vez
+//     anterior, en zigzag varint. Una bola que no rebota ni choca ocupa 2 bytes.
+//   - Si cambia la versión del BallStore los índices ya no valen y se envía una
+//     instantánea completa (keyframe), igual que a un cliente recién conectado.
+// Tamaño y color no cambian, así que de cada bola solo se envían una vez.
+//
+// Formato: tipo (1: DELTA | KEYFRAME) y
+//   DELTA:    first - first anterior (zigzag), bolas (varint), las nuevas del fondo
+//             (x, y en zigzag, tamaño en varint, color RGB en 3 bytes) y el error de
+//             predicción en x e y (zigzag) de cada una de las demás
+//   KEYFRAME: first, bolas (varint) y por bola x, y, avance x, avance y (zigzag),
+//             tamaño (varint) y color (3 bytes)
+public class SnapshotCodec {
+    private static final byte DELTA = 0;
+    private static final byte KEYFRAME = 1;
+
+    private int first;
+    private int count = -1;           // -1 mientras no hay referencia
+    private int version;              // Versión del BallStore codificada (solo al codificar)
+    private int[] qx = new int[0];    // Posición cuantizada por índice de bola
+    private int[] qy = new int[0];
+    private int[] dx = new int[0];    // Avance desde la instantánea anterior
+    private int[] dy = new int[0];
+    private int[] size = new int[0];
+    private int[] rgb = new int[0];
+    private boolean keyframe;         // La última instantánea decodificada era completa
+
+    // Bytes que puede ocupar como mucho la codificación de n bolas.
+    public static int maxBytes(int n) { return 16 + n * 32; }
+
+    // Codifica las bolas contra la referencia y la actualiza.
+    // out debe tener sitio para maxBytes(balls.size()).
+    // @param balls Estado actual.
+    // @param out Destino.
+    // @return true si ha hecho falta una instantánea completa.
+    public boolean encode(BallStore balls, ByteBuffer out) {
+        int f = balls.first(), end = balls.end();
+        ensure(end);
+        if (count < 0 || balls.version() != version || f > first || end > first + count) {
+            for (int i = f; i < end; i++) {
+                qx[i] = NetProtocol.quantize(balls.x[i]);
+                qy[i] = NetProtocol.quantize(balls.y[i]);
+                dx[i] = 0;
+                dy[i] = 0;
+                size[i] = (int) Math.round(balls.size[i]);
+                rgb[i] = balls.color[i] & 0xFFFFFF;
+            }
+            first = f;
+            count = end - f;
+            version = balls.version();
+            writeKeyframe(out);
+            return true;
+        }
+        out.put(DELTA);
+        NetProtocol.putZigzag(out, f - first);
+        NetProtocol.putVarint(out, end - f);
+        for (int i = f; i < first; i++) {
+            qx[i] = NetProtocol.quantize(balls.x[i]);
+            qy[i] = NetProtocol.quantize(balls.y[i]);
+            dx[i] = 0;
+            dy[i] = 0;
+            size[i] = (int) Math.round(balls.size[i]);
+            rgb[i] = balls.color[i] & 0xFFFFFF;
+            putBall(out, i);
+        }
+        for (int i = first; i < end; i++) {
+            int x = NetProtocol.quantize(balls.x[i]);
+            int y = NetProtocol.quantize(balls.y[i]);
+            NetProtocol.putZigzag(out, x - qx[i] - dx[i]);
+            NetProtocol.putZigzag(out, y - qy[i] - dy[i]);
+            dx[i] = x - qx[i];
+            dy[i] = y - qy[i];
+            qx[i] = x;
+            qy[i] = y;
+        }
+        first = f;
+        count = end - f;
+        return false;
+    }
+
+    // Escribe la referencia entera, para quien aún no la tiene.
+    public void writeKeyframe(ByteBuffer out) {
+        out.put(KEYFRAME);
+        NetProtocol.putVarint(out, first);
+        NetProtocol.putVarint(out, count);
+        for (int i = first, end = first + count; i < end; i++) {
+            NetProtocol.putZigzag(out, qx[i]);
+            NetProtocol.putZigzag(out, qy[i]);
+            NetProtocol.putZigzag(out, dx[i]);
+            NetProtocol.putZigzag(out, dy[i]);
+            NetProtocol.putVarint(out, size[i]);
+            putRgb(out, rgb[i]);
+        }
+    }
+
+    // Lee una instantánea y actualiza la referencia.
+    // @throws IllegalArgumentException Si es un delta sin referencia o no encaja con ella.
+    public void decode(ByteBuffer in) {
+        byte type = in.get();
+        if (type == KEYFRAME) {
+            int f = (int) NetProtocol.getVarint(in);
+            int n = (int) NetProtocol.getVarint(in);
+            ensure(f + n);
+            for (int i = f; i < f + n; i++) {
+                qx[i] = (int) NetProtocol.getZigzag(in);
+                qy[i] = (int) NetProtocol.getZigzag(in);
+                dx[i] = (int) NetProtocol.getZigzag(in);
+                dy[i] = (int) NetProtocol.getZigzag(in);
+                size[i] = (int) NetProtocol.getVarint(in);
+                rgb[i] = getRgb(in);
+            }
+            first = f;
+            count = n;
+            keyframe = true;
+            return;
+        }
+        if (type != DELTA || count < 0) throw new IllegalArgumentException("Instantánea sin referencia");
+        int f = first + (int) NetProtocol.getZigzag(in);
+        int n = (int) NetProtocol.getVarint(in);
+        if (f < 0 || f > first || f + n > first + count) {
+            throw new IllegalArgumentException("Instantánea fuera de la referencia: [" + f + ", " + (f + n) + ")");
+        }
+        for (int i = f; i < first; i++) {
+            qx[i] = (int) NetProtocol.getZigzag(in);
+            qy[i] = (int) NetProtocol.getZigzag(in);
+            dx[i] = 0;
+            dy[i] = 0;
+            size[i] = (int) NetProtocol.getVarint(in);
+            rgb[i] = getRgb(in);
+        }
+        for (int i = first, end = f + n; i < end; i++) {
+            int x = qx[i] + dx[i] + (int) NetProtocol.getZigzag(in);
+            int y = qy[i] + dy[i] + (int) NetProtocol.getZigzag(in);
+            dx[i] = x - qx[i];
+            dy[i] = y - qy[i];
+            qx[i] = x;
+            qy[i] = y;
+        }
+        first = f;
+        count = n;
+        keyframe = false;
+    }
+
+    // Bolas de la referencia: índices [first(), end()).
+    public int first() { return first; }
+    public int end() { return first + Math.max(count, 0); }
+    // true si la última instantánea decodificada era completa: los índices pueden no
+    // corresponder a las mismas bolas que en la anterior.
+    public boolean isKeyframe() { return keyframe; }
+
+    public double getX(int i) { return qx[i] / (double) NetProtocol.QUANT; }
+    public double getY(int i) { return qy[i] / (double) NetProtocol.QUANT; }
+    public int getSize(int i) { return size[i]; }
+    public int getColor(int i) { return 0xFF000000 | rgb[i]; }
+
+    private void putBall(ByteBuffer out, int i) {
+        NetProtocol.putZigzag(out, qx[i]);
+        NetProtocol.putZigzag(out, qy[i]);
+        NetProtocol.putVarint(out, size[i]);
+        putRgb(out, rgb[i]);
+    }
+
+    private static void putRgb(ByteBuffer out, int c) {
+        out.put((byte) (c >> 16)).put((byte) (c >> 8)).put((byte) c);
+    }
+
+    private static int getRgb(ByteBuffer in) {
+        return (in.get() & 0xFF) << 16 | (in.get() & 0xFF) << 8 | (in.get() & 0xFF);
+    }
+
+    private void ensure(int n) {
+        if (qx.length >= n) return;
+        int c = Math.max(n, qx.length * 2);
+        qx = Arrays.copyOf(qx, c);
+        qy = Arrays.copyOf(qy, c);
+        dx = Arrays.copyOf(dx, c);
+        dy = Arrays.copyOf(dy, c);
+        size = Arrays.copyOf(size, c);
+        rgb = Arrays.copyOf(rgb, c);
+    }
+}
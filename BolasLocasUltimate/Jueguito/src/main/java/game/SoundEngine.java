@@ -0,0 +1,254 @@
+package game;
+
+import javax.sound.sampled.*;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+// Mezclador de efectos de sonido.
+// Los WAV se decodifican una sola vez, en el pool de Assets, a muestras de 16 bits estéreo y se reproducen
+// desde un número fijo de voces que un hilo propio mezcla sobre una única
+// SourceDataLine. play() solo encola la petición, así que no bloquea a quien llama.
+// Si todas las voces están ocupadas se roba la que lleva más tiempo sonando.
+public class SoundEngine {
+    private static final float RATE = 44100f;
+    private static final AudioFormat FORMAT = new AudioFormat(RATE, 16, 2, true, false);
+    private static final int CHUNK_FRAMES = 256;     // ~5.8 ms por bloque de mezcla
+    private static final int LINE_CHUNKS = 4;        // Bloques que caben en la línea
+
+    private final int maxVoices;
+    private final Map<String, CompletableFuture<short[]>> samples = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Request> requests = new ConcurrentLinkedQueue<>();
+    private final String[] preload;
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile boolean available;
+
+    // Voces (solo las toca el hilo del mezclador)
+    private final short[][] voiceData;
+    private final int[] voicePos;
+    private final long[] voiceStart;
+
+    // Métricas
+    private volatile double latencyMillis;
+    private volatile double maxLatencyMillis;
+    private volatile long played;
+    private volatile long stolen;
+    private volatile long dropped;
+
+    // Constructor.
+    // @param maxVoices Número de sonidos simultáneos.
+    // @param preload Nombres en el classpath de los WAV que se decodifican al arrancar.
+    public SoundEngine(int maxVoices, String... preload) {
+        this.maxVoices = maxVoices;
+        this.preload = preload;
+        voiceData = new short[maxVoices][];
+        voicePos = new int[maxVoices];
+        voiceStart = new long[maxVoices];
+    }
+
+    // Arranca el hilo del mezclador y pide a Assets que decodifique los sonidos en paralelo.
+    // Mientras un sonido no esté listo sus peticiones se descartan.
+    public synchronized void start() {
+        if (thread != null) return;
+        running = true;
+        for (String name : preload) {
+            if (!samples.containsKey(name)) samples.put(name, Assets.shared().acquire(name, SoundEngine::decode));
+        }
+        Thread t = Scheduler.shared().newThread("sound-mixer", Thread.MAX_PRIORITY, this::run);
+        thread = t;
+        t.start();
+    }
+
+    // Detiene el mezclador y suelta los sonidos.
+    public synchronized void stop() {
+        running = false;
+        for (String name : samples.keySet()) Assets.shared().release(name);
+        samples.clear();
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread = null;
+        }
+    }
+
+    // Pide reproducir un sonido. No bloquea.
+    // @param name Nombre del WAV (uno de los precargados).
+    public void play(String name) {
+        requests.add(new Request(name, System.nanoTime()));
+        Thread t = thread;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    // Latencia media desde play() hasta que el sonido sale por la línea (milisegundos).
+    public double getLatencyMillis() { return latencyMillis; }
+    public double getMaxLatencyMillis() { return maxLatencyMillis; }
+    public long getPlayed() { return played; }
+    // Voces cortadas para hacer sitio a otro sonido.
+    public long getStolen() { return stolen; }
+    // Peticiones descartadas (sonido desconocido o sin dispositivo de audio).
+    public long getDropped() { return dropped; }
+    public boolean isAvailable() { return available; }
+
+    private void run() {
+        SourceDataLine line;
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, CHUNK_FRAMES * LINE_CHUNKS * 4);
+            line.start();
+            available = true;
+        } catch (Exception e) {
+            System.err.println("Sin salida de audio: " + e.getMessage());
+            while (running) {
+                while (requests.poll() != null) dropped++;
+                LockSupport.park(this);
+            }
+            return;
+        }
+
+        int[] mix = new int[CHUNK_FRAMES * 2];
+        byte[] out = new byte[CHUNK_FRAMES * 4];
+        try {
+            while (running) {
+                takeRequests(line);
+                if (!mixChunk(mix, out)) {
+                    // Nada que sonar: se espera a la siguiente petición
+                    LockSupport.parkNanos(this, 50_000_000L);
+                    continue;
+                }
+                line.write(out, 0, out.length);
+            }
+        } finally {
+            line.drain();
+            line.close();
+        }
+    }
+
+    // Asigna voces a las peticiones pendientes.
+    private void takeRequests(SourceDataLine line) {
+        Request r;
+        while ((r = requests.poll()) != null) {
+            short[] data = loaded(r.name);
+            if (data == null) {
+                dropped++;
+                continue;
+            }
+            int v = freeVoice();
+            if (voiceData[v] != null) stolen++;
+            voiceData[v] = data;
+            voicePos[v] = 0;
+            voiceStart[v] = r.requested;
+
+            // Latencia = espera en cola + lo que ya hay en la línea por delante
+            int queuedFrames = (line.getBufferSize() - line.available()) / 4;
+            double ms = (System.nanoTime() - r.requested) / 1e6 + queuedFrames * 1000.0 / RATE;
+            latencyMillis = played == 0 ? ms : latencyMillis * 0.9 + ms * 0.1;
+            if (ms > maxLatencyMillis) maxLatencyMillis = ms;
+            played++;
+        }
+    }
+
+    // Muestras de un sonido si ya terminó de cargarse, o null.
+    private short[] loaded(String name) {
+        CompletableFuture<short[]> f = samples.get(name);
+        if (f == null || !f.isDone()) return null;
+        if (f.isCompletedExceptionally()) {
+            // Se avisa una sola vez y se deja de pedir
+            if (samples.remove(name, f)) {
+                f.whenComplete((d, e) -> System.err.println("No se pudo cargar el sonido " + name + ": " + e.getMessage()));
+                Assets.shared().release(name);
+            }
+            return null;
+        }
+        return f.join();
+    }
+
+    // Devuelve una voz libre o, si no hay, la que empezó antes.
+    private int freeVoice() {
+        int oldest = 0;
+        for (int v = 0; v < maxVoices; v++) {
+            if (voiceData[v] == null) return v;
+            if (voiceStart[v] < voiceStart[oldest]) oldest = v;
+        }
+        return oldest;
+    }
+
+    // Mezcla un bloque de todas las voces activas.
+    // @return false si no hay ninguna voz sonando.
+    private boolean mixChunk(int[] mix, byte[] out) {
+        boolean any = false;
+        Arrays.fill(mix, 0);
+        for (int v = 0; v < maxVoices; v++) {
+            short[] data = voiceData[v];
+            if (data == null) continue;
+            any = true;
+            int pos = voicePos[v];
+            int n = Math.min(mix.length, data.length - pos);
+            for (int i = 0; i < n; i++) mix[i] += data[pos + i];
+            pos += n;
+            if (pos >= data.length) voiceData[v] = null;
+            voicePos[v] = pos;
+        }
+        if (!any) return false;
+        for (int i = 0; i < mix.length; i++) {
+            int s = mix[i];
+            if (s > Short.MAX_VALUE) s = Short.MAX_VALUE;
+            else if (s < Short.MIN_VALUE) s = Short.MIN_VALUE;
+            out[i * 2] = (byte) s;
+            out[i * 2 + 1] = (byte) (s >> 8);
+        }
+        return true;
+    }
+
+    // Decodifica un WAV a muestras de 16 bits estéreo intercaladas a 44100 Hz.
+    // @param url Recurso resuelto por Assets (fichero o entrada del jar).
+    static short[] decode(URL url) throws Exception {
+        try (InputStream raw = new BufferedInputStream(url.openStream());
+             AudioInputStream in = AudioSystem.getAudioInputStream(raw)) {
+            AudioFormat src = in.getFormat();
+            int channels = Math.max(1, Math.min(2, src.getChannels()));
+            AudioFormat pcm = new AudioFormat(src.getSampleRate(), 16, channels, true, false);
+            try (AudioInputStream conv = AudioSystem.getAudioInputStream(pcm, in)) {
+                byte[] bytes = readAll(conv);
+                int frames = bytes.length / (2 * channels);
+                double step = src.getSampleRate() / RATE; // Remuestreo por vecino más cercano si hace falta
+                int outFrames = (int) (frames / step);
+                short[] data = new short[outFrames * 2];
+                for (int f = 0; f < outFrames; f++) {
+                    int sf = Math.min(frames - 1, (int) (f * step));
+                    int k = sf * 2 * channels;
+                    short l = (short) ((bytes[k] & 0xFF) | (bytes[k + 1] << 8));
+                    short r = channels == 2 ? (short) ((bytes[k + 2] & 0xFF) | (bytes[k + 3] << 8)) : l;
+                    data[f * 2] = l;
+                    data[f * 2 + 1] = r;
+                }
+                return data;
+            }
+        }
+    }
+
+    private static byte[] readAll(AudioInputStream in) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        byte[] tmp = new byte[16384];
+        int n;
+        while ((n = in.read(tmp)) > 0) buf.write(tmp, 0, n);
+        return buf.toByteArray();
+    }
+
+    private static final class Request {
+        final String name;
+        final long requested;
+
+        Request(String name, long requested) {
+            this.name = name;
+            this.requested = requested;
+        }
+    }
+}
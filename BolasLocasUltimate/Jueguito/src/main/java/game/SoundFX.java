@@ -1,19 +1,27 @@
 package game;
 
-import javax.sound.sampled.*;
-import java.io.File;
-
 
 public class SoundFX {
-    // Reproduce un efecto de sonido
-    public static void play(String filePath) {
-        try {
-            AudioInputStream audioIn = AudioSystem.getAudioInputStream(new File(filePath));
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioIn);
-            clip.start();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    // Efectos que se decodifican al arrancar (nombres dentro del classpath)
+    private static final SoundEngine ENGINE = new SoundEngine(8,
+            "acierto.wav",
+            "fallo.wav",
+            "victoria.wav",
+            "derrota.wav");
+
+    // Arranca el mezclador y precarga los efectos en segundo plano
+    public static void init() {
+        ENGINE.start();
+    }
+
+    // Reproduce un efecto de sonido sin bloquear
+    public static void play(String name) {
+        ENGINE.start();
+        ENGINE.play(name);
+    }
+
+    // Mezclador, para consultar latencia y voces perdidas
+    public static SoundEngine engine() {
+        return ENGINE;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package game;
+
+import java.util.Arrays;
+
+// Índice espacial de rejilla uniforme sobre un BallStore.
+// Cada bola se registra en todas las celdas que toca su caja; dentro de cada celda
+// los índices quedan ordenados de fondo a frente, así que la consulta del punto
+// solo recorre una celda y devuelve la primera bola que lo contiene empezando por el final.
+// Tras cada paso de simulación se llama a update(): si ninguna bola ha cambiado de
+// celdas no se reconstruye nada. Todos los arrays se reutilizan entre frames.
+// Entre dos actualizaciones los clics no reconstruyen nada: las bolas quitadas del frente
+// se saltan porque su índice ya no es menor que end(), y las añadidas al fondo, que están
+// detrás de todas las indexadas, se miran aparte. Así una consulta recorre una celda más
+// las bolas añadidas desde el último paso, sin depender del número total de bolas.
+// Solo lo usa el hilo de la simulación, así que no necesita sincronización.
+public class SpatialGrid {
+    private static final int MIN_CELL = 32;
+    private static final int MAX_CELL = 512;
+
+    private int cellSize = 128;
+    private int cols;
+    private int rows;
+    private int width;
+    private int height;
+    private int indexedFirst; // Bolas indexadas: [indexedFirst, indexedEnd)
+    private int indexedEnd;
+    private int indexedVersion; // Versión del BallStore indexada
+    private boolean dirty = true;
+
+    private int[] cellStart = new int[1]; // Inicio de cada celda en items (tamaño celdas + 1)
+    private int[] items = new int[0];     // Índices de bolas agrupados por celda
+    private int[] range = new int[0];     // Celdas ocupadas por cada índice de bola: minCx, minCy, maxCx, maxCy
+
+    // Actualiza el índice tras un paso de simulación.
+    // @param balls Almacén de bolas.
+    // @param w Ancho de la superficie.
+    // @param h Alto de la superficie.
+    public void update(BallStore balls, int w, int h) {
+        int first = balls.first(), end = balls.end();
+        if (w <= 0 || h <= 0) { dirty = true; return; }
+        if (w != width || h != height || first != indexedFirst || end != indexedEnd
+                || balls.version() != indexedVersion) dirty = true;
+        if (dirty) {
+            int cs = chooseCellSize(balls);
+            if (cs != cellSize) cellSize = cs;
+        }
+        if (range.length < end * 4) {
+            range = Arrays.copyOf(range, Math.max(end * 4, range.length * 2));
+            dirty = true;
+        }
+        width = w;
+        height = h;
+        cols = (w + cellSize - 1) / cellSize;
+        rows = (h + cellSize - 1) / cellSize;
+
+        // Recalcula las celdas de cada bola y detecta si alguna ha cambiado
+        boolean changed = dirty;
+        for (int i = first; i < end; i++) {
+            int minCx = clamp((int) balls.x[i] / cellSize, cols);
+            int minCy = clamp((int) balls.y[i] / cellSize, rows);
+            int maxCx = clamp((int) (balls.x[i] + balls.size[i]) / cellSize, cols);
+            int maxCy = clamp((int) (balls.y[i] + balls.size[i]) / cellSize, rows);
+            int k = i * 4;
+            if (range[k] != minCx || range[k + 1] != minCy || range[k + 2] != maxCx || range[k + 3] != maxCy) {
+                range[k] = minCx;
+                range[k + 1] = minCy;
+                range[k + 2] = maxCx;
+                range[k + 3] = maxCy;
+                changed = true;
+            }
+        }
+        if (changed) rebuild(first, end);
+        indexedFirst = first;
+        indexedEnd = end;
+        indexedVersion = balls.version();
+        dirty = false;
+    }
+
+    // Devuelve la bola más al frente que contiene el punto (px, py), o -1.
+    // Solo se reconstruye antes si los índices han cambiado de bola (otra versión del
+    // BallStore) o hay bolas nuevas al frente; añadir al fondo y quitar del frente no.
+    public int topmostAt(BallStore balls, double px, double py) {
+        if (dirty || indexedVersion != balls.version() || balls.end() > indexedEnd) {
+            if (width <= 0 || height <= 0) return balls.topmostAt(px, py);
+            update(balls, width, height);
+        }
+        if (px < 0 || py < 0 || px >= width || py >= height) return -1;
+        int end = balls.end();
+        int cell = ((int) py / cellSize) * cols + (int) px / cellSize;
+        for (int j = cellStart[cell + 1] - 1; j >= cellStart[cell]; j--) {
+            int i = items[j];
+            if (i < end && balls.contains(i, px, py)) return i; // i >= end: quitada del frente
+        }
+        // Añadidas al fondo después de indexar, de la más cercana al frente a la más al fondo
+        for (int i = indexedFirst - 1; i >= balls.first(); i--) {
+            if (balls.contains(i, px, py)) return i;
+        }
+        return -1;
+    }
+
+    // Reparte las bolas en celdas mediante ordenación por conteo.
+    private void rebuild(int first, int end) {
+        int cells = cols * rows;
+        if (cellStart.length < cells + 1) cellStart = new int[cells + 1];
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+
+        int total = 0;
+        for (int i = first; i < end; i++) {
+            int k = i * 4;
+            for (int cy = range[k + 1]; cy <= range[k + 3]; cy++) {
+                for (int cx = range[k]; cx <= range[k + 2]; cx++) {
+                    cellStart[cy * cols + cx + 1]++;
+                    total++;
+                }
+            }
+        }
+        for (int c = 0; c < cells; c++) cellStart[c + 1] += cellStart[c];
+        if (items.length < total) items = new int[Math.max(total, items.length * 2)];
+
+        // Segunda pasada: usa cellStart como cursor y después lo restaura
+        for (int i = first; i < end; i++) {
+            int k = i * 4;
+            for (int cy = range[k + 1]; cy <= range[k + 3]; cy++) {
+                for (int cx = range[k]; cx <= range[k + 2]; cx++) {
+                    items[cellStart[cy * cols + cx]++] = i;
+                }
+            }
+        }
+        for (int c = cells; c > 0; c--) cellStart[c] = cellStart[c - 1];
+        cellStart[0] = 0;
+    }
+
+    // Tamaño de celda proporcional al tamaño medio de las bolas.
+    private int chooseCellSize(BallStore balls) {
+        int n = balls.size();
+        if (n == 0) return cellSize;
+        double sum = 0;
+        for (int i = balls.first(), end = balls.end(); i < end; i++) sum += balls.size[i];
+        int avg = (int) (sum / n);
+        return Math.max(MIN_CELL, Math.min(MAX_CELL, avg));
+    }
+
+    private static int clamp(int c, int limit) {
+        return c < 0 ? 0 : (c >= limit ? limit - 1 : c);
+    }
+}
@@ -0,0 +1,177 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// Caché de bolas ya dibujadas, indexada por (tamaño, color, acabado).
+// Dibujar un óvalo con antialiasing es caro; con la caché cada bola se dibuja una
+// sola vez en una imagen compatible con la pantalla (Java2D la acelera en la
+// tarjeta gráfica) y en cada frame solo se copia con drawImage.
+// La caché es LRU con un límite de memoria y de entradas. La búsqueda y la lista
+// LRU usan arrays primitivos para no crear objetos en cada consulta.
+public class SpriteCache {
+    private static final SpriteCache SHARED = new SpriteCache(
+            Integer.getInteger("game.spriteCacheMB", 64) * 1024L * 1024L, 4096);
+
+    private final long maxBytes;
+    private final int[] buckets;   // Primer hueco de cada cubeta (-1 si vacía)
+    private final int[] chain;     // Siguiente hueco en la misma cubeta
+    private final long[] keys;
+    private final BufferedImage[] images;
+    private final int[] newer;     // Lista LRU doblemente enlazada
+    private final int[] older;
+    private int mru = -1;
+    private int lru = -1;
+    private int free;              // Lista de huecos libres (enlazada por chain)
+    private int entries;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // Constructor.
+    // @param maxBytes Memoria máxima ocupada por las imágenes.
+    // @param maxEntries Número máximo de imágenes.
+    public SpriteCache(long maxBytes, int maxEntries) {
+        this.maxBytes = maxBytes;
+        buckets = new int[Integer.highestOneBit(maxEntries * 2 - 1) << 1];
+        Arrays.fill(buckets, -1);
+        chain = new int[maxEntries];
+        keys = new long[maxEntries];
+        images = new BufferedImage[maxEntries];
+        newer = new int[maxEntries];
+        older = new int[maxEntries];
+        for (int i = 0; i < maxEntries; i++) chain[i] = i + 1 < maxEntries ? i + 1 : -1;
+        free = 0;
+    }
+
+    // Caché compartida por todos los paneles.
+    public static SpriteCache shared() { return SHARED; }
+
+    // Devuelve la imagen de una bola, creándola si no está en caché.
+    // @param gc Configuración gráfica de destino (null para una imagen en memoria).
+    // @param size Diámetro de la bola.
+    // @param argb Color de la bola.
+    public BufferedImage get(GraphicsConfiguration gc, int size, int argb) {
+        return get(gc, size, argb, true, true);
+    }
+
+    // Devuelve la imagen de una bola con el acabado indicado, creándola si no está en caché.
+    // @param antialias Bordes suavizados.
+    // @param outline Borde negro de un píxel.
+    public synchronized BufferedImage get(GraphicsConfiguration gc, int size, int argb, boolean antialias, boolean outline) {
+        long style = (antialias ? 1L : 0) | (outline ? 2L : 0);
+        long key = (style << 56) | ((long) size << 32) | (argb & 0xFFFFFFFFL);
+        int b = bucket(key);
+        for (int i = buckets[b]; i != -1; i = chain[i]) {
+            if (keys[i] == key) {
+                hits++;
+                touch(i);
+                return images[i];
+            }
+        }
+        misses++;
+        BufferedImage img = render(gc, size, argb, antialias, outline);
+        long cost = imageBytes(img);
+        while ((bytes + cost > maxBytes || free == -1) && lru != -1) evict(lru);
+        if (free == -1) return img; // No cabe ni vacía: se usa sin guardar
+
+        int i = free;
+        free = chain[i];
+        keys[i] = key;
+        images[i] = img;
+        chain[i] = buckets[b];
+        buckets[b] = i;
+        linkFirst(i);
+        entries++;
+        bytes += cost;
+        return img;
+    }
+
+    // Vacía la caché.
+    public synchronized void clear() {
+        while (lru != -1) evict(lru);
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int getEntries() { return entries; }
+    public synchronized long getBytes() { return bytes; }
+
+    // Porcentaje de aciertos desde el arranque.
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // Dibuja una bola con relleno y, si se pide, borde negro, igual que hacía fillOval + drawOval.
+    private static BufferedImage render(GraphicsConfiguration gc, int size, int argb, boolean antialias, boolean outline) {
+        int s = Math.max(size, 1) + 1; // drawOval ocupa un píxel más que el diámetro
+        BufferedImage img = gc != null
+                ? gc.createCompatibleImage(s, s, Transparency.TRANSLUCENT)
+                : new BufferedImage(s, s, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+            g.setColor(new Color(argb, true));
+            g.fillOval(0, 0, size, size);
+            if (outline) {
+                g.setColor(Color.BLACK);
+                g.drawOval(0, 0, size, size);
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    private void evict(int i) {
+        int b = bucket(keys[i]);
+        if (buckets[b] == i) {
+            buckets[b] = chain[i];
+        } else {
+            int p = buckets[b];
+            while (chain[p] != i) p = chain[p];
+            chain[p] = chain[i];
+        }
+        unlink(i);
+        bytes -= imageBytes(images[i]);
+        images[i].flush();
+        images[i] = null;
+        entries--;
+        evictions++;
+        chain[i] = free;
+        free = i;
+    }
+
+    private void touch(int i) {
+        if (mru == i) return;
+        unlink(i);
+        linkFirst(i);
+    }
+
+    private void linkFirst(int i) {
+        older[i] = mru;
+        newer[i] = -1;
+        if (mru != -1) newer[mru] = i;
+        mru = i;
+        if (lru == -1) lru = i;
+    }
+
+    private void unlink(int i) {
+        if (newer[i] != -1) older[newer[i]] = older[i]; else mru = older[i];
+        if (older[i] != -1) newer[older[i]] = newer[i]; else lru = newer[i];
+    }
+
+    private int bucket(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & (buckets.length - 1);
+    }
+
+    private static long imageBytes(BufferedImage img) {
+        return (long) img.getWidth() * img.getHeight() * 4;
+    }
+}
@@ -3,41 +3,80 @@ package game;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-import java.util.concurrent.*;
-
-// Superficie de juego donde se animan y gestionan las bolas.
-// Controla la lógica de animación, interacción, tiempo y renderizado.
-public class Surface extends JPanel implements KeyListener, MouseListener {
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Superficie de juego donde se animan y dibujan las bolas.
+// Las reglas de la partida están en GameWorld; Surface la hace avanzar con un GameLoop,
+// le pasa los clics y dibuja su estado.
+// El GameWorld solo lo toca el hilo de la simulación.
+// Al terminar cada frame se publica una copia en un TripleBuffer que el dibujado lee
+// sin bloqueos, y las pulsaciones del EDT llegan por un InputRing que se aplica en bloque
+// entre pasos; cuando el frame que las refleja ya está en pantalla se anota su latencia
+// en FrameMetrics.
+// En una partida en red (setRemote) la simulación está en el GameServer: los clics se
+// envían al NetClient y cada frame se rellena con el estado interpolado que devuelve.
+public class Surface extends JPanel implements KeyListener, MouseListener, GameLoop.Simulation, GameWorld.Listener {
     private Main main;
-    private ScheduledExecutorService executor;
-    private boolean paused;
-    private final List<Ball> balls;
-    private final int targetFPS = 60;
-    private final Random random = new Random();
-
-    // --- Reloj y mecánica de tiempo ---
-    private int timeLeft = 30; // Tiempo inicial en segundos
-    private final int timeBonus = 7; // Tiempo que se suma al acertar
-    private final int timePenalty = 5; // Tiempo que se resta al fallar
-    private long lastSecond = System.currentTimeMillis();
-    private boolean gameOver = false; // Añade esta línea
-
-    // Constructor. Inicializa la superficie, crea las bolas y añade los listeners.
-    // @param w Ancho de la superficie.
-    // @param h Alto de la superficie.
+    private GameLoop loop;
+    private boolean running; // Entre start() y stop(); solo se usa en el EDT
+    private ActiveRenderer renderer; // null si se dibuja con Swing
+    private DamageTracker damage; // null si se repinta siempre el panel entero
+    private TiledRenderer tiled; // null si las bolas se dibujan con Ball.paint
+    private final AtomicBoolean damagePending = new AtomicBoolean();
+    private final int[] damageRegions = new int[64 * 4];
+    private volatile boolean paused;
+    private final GameWorld world;
+    private final long seed = System.nanoTime(); // Semilla de la partida, se guarda al grabar
+    private Path recordDir; // Carpeta donde se graban las partidas, o null
+    private GameRecorder recorder;
+    private NetClient remote; // Partida en un GameServer, o null si se juega en local
+    private final int numBalls;
+    private int initialTime = 30;
+    private final TripleBuffer<WorldFrame> frames;
+    // Pulsaciones del EDT a la simulación, y cuándo se produjo cada una de las ya aplicadas
+    // (por número de orden) para medir la latencia cuando se pinta su efecto
+    private final InputRing input = new InputRing(256);
+    private final long[] appliedAt = new long[256];
+    private long appliedSeq;  // Solo la simulación
+    private long reportedSeq; // Solo el hilo que pinta
+    private long drawnSeq;    // inputSeq del último frame dibujado, aún sin anotar
+    private boolean shownPending; // Solo el EDT: frameShown ya encolado
+    private final Runnable shownTask = this::frameShown;
+    private WorldFrame painting; // Frame fijado mientras el EDT pinta varias zonas seguidas
+    private final SpriteCache sprites = SpriteCache.shared();
+    private final FrameMetrics metrics = FrameMetrics.shared();
+    private volatile boolean showMetrics; // Panel de métricas (F3)
+    private final MetricsOverlay overlay = new MetricsOverlay();
+    private final QualityController quality = QualityController.fromSystemProperties(); // Solo el hilo que pinta
+
+    // Textos del HUD: solo se recomponen cuando cambia su valor
+    private static final long STATS_REFRESH_NANOS = 250_000_000L; // Las estadísticas se refrescan 4 veces por segundo
+    private final TextLabel timeLabel = new TextLabel(RenderResources.HUD, "Tiempo: ", "");
+    private final TextLabel ballsLabel = new TextLabel(RenderResources.HUD, "Bolas: ", "");
+    private final TextLabel statsLabel = new TextLabel(RenderResources.STATS);
+    private final TextLabel bannerLabel = new TextLabel(RenderResources.BANNER).setText("¡Tiempo agotado! Has perdido la partida.");
+    private long statsUpdated = System.nanoTime() - STATS_REFRESH_NANOS;
+    private final int targetFPS = 60; // Pasos de simulación por segundo
+    private final int maxCatchUp = 5; // Pasos máximos recuperados por frame
+
+    // Constructor. Inicializa la superficie, crea la partida y añade los listeners.
     // @param numBalls Número inicial de bolas.
+    // @param main Ventana principal, para mostrar el final de la partida.
     public Surface(int numBalls, Main main) {
         this.main = main;
+        this.numBalls = numBalls;
         Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
         setPreferredSize(screenSize);
         setBackground(Color.BLACK);
-        balls = new ArrayList<>();
-        for (int i = 0; i < numBalls; i++) {
-            balls.add(createRandomBall(screenSize.width, screenSize.height));
-        }
+        world = new GameWorld(numBalls, screenSize.width, screenSize.height, seed);
+        world.setMoveStep(ParallelMoveStep.fromSystemProperties());
+        world.setListener(this);
+        frames = WorldFrame.tripleBuffer(numBalls);
         addKeyListener(this);
         addMouseListener(this);
         setFocusable(true);
@@ -61,37 +100,198 @@ public class Surface extends JPanel implements KeyListener, MouseListener {
         requestFocusInWindow();
     }
 
-    // Crea una bola con propiedades aleatorias.
-    // @param w Ancho máximo para la posición.
-    // @param h Alto máximo para la posición.
-    // @return Nueva instancia de Ball.
-    private Ball createRandomBall(int w, int h) {
-        int size = random.nextInt(300) + 150; // Tamaño entre 60 y 120
-        double x = random.nextDouble() * (w - size);
-        double y = random.nextDouble() * (h - size);
-        double direction = Math.toRadians(random.nextInt(360));
-        double speed = random.nextDouble() * 200 + 100;
-        Color color = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
-        return new Ball(this, x, y, size, direction, speed, color);
+    // Activa el dibujado activo: un Canvas con BufferStrategy y un hilo de dibujado propio
+    // sustituyen a paintComponent. Debe llamarse antes de start().
+    public void setActiveRendering(boolean enabled) {
+        if (enabled == (renderer != null)) return;
+        if (enabled) {
+            renderer = new ActiveRenderer(this::paintMeasured, this::reportInput);
+            // El Canvas recibe los eventos en lugar del panel
+            for (KeyListener l : getKeyListeners()) renderer.addKeyListener(l);
+            for (MouseListener l : getMouseListeners()) renderer.addMouseListener(l);
+            setLayout(new BorderLayout());
+            add(renderer, BorderLayout.CENTER);
+        } else {
+            remove(renderer);
+            renderer = null;
+        }
+    }
+
+    // Dibuja el fondo y las bolas por baldosas en varios núcleos (TiledRenderer)
+    // en lugar de con un único Graphics2D.
+    public void setTiledRendering(boolean enabled) {
+        tiled = enabled ? TiledRenderer.fromSystemProperties() : null;
+    }
+
+    // Activa el repintado por zonas: solo se repinta donde se han movido las bolas y el HUD.
+    public void setDirtyRegions(boolean enabled) {
+        damage = enabled ? new DamageTracker() : null;
+    }
+
+    // Graba la partida en la carpeta indicada para poder repetirla con GameReplay.
+    // Debe llamarse antes de start().
+    // @param dir Carpeta de destino, o null para no grabar.
+    public void setRecording(Path dir) {
+        this.recordDir = dir;
+    }
+
+    // Juega en un GameServer a través del cliente indicado en lugar de simular en local.
+    // Debe llamarse antes de start(); el cliente se cierra al parar la partida.
+    public void setRemote(NetClient client) {
+        remote = client;
+        client.setListener(this);
     }
 
-    // Inicia el bucle de animación usando ScheduledExecutorService
+    // Inicia el bucle de juego: la física avanza a paso fijo y se dibuja al ritmo de la pantalla
     public void start() {
-        long delay = 1_000_000_000L / targetFPS; // nanosegundos por frame
-        executor = Executors.newSingleThreadScheduledExecutor();
-        executor.scheduleAtFixedRate(() -> {
-            if (!paused) {
-                next(delay);
-                updateTimer(); // <-- Aquí se sigue llamando en cada frame
-                repaint();
+        if (recordDir != null && remote == null) {
+            try {
+                Files.createDirectories(recordDir);
+                String name = "partida-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".blr";
+                recorder = new GameRecorder(recordDir.resolve(name), seed, world, 1_000_000_000L / targetFPS);
+                System.out.println("Grabando la partida en " + recorder.getFile());
+            } catch (IOException e) {
+                System.err.println("No se pudo grabar la partida: " + e.getMessage());
             }
-        }, 0, delay, java.util.concurrent.TimeUnit.NANOSECONDS);
+        }
+        publish();
+        loop = new GameLoop(this, targetFPS, maxCatchUp);
+        running = true;
+        if (isDisplayable()) runLoop();
     }
 
     // Detiene el bucle de animación de forma segura
     public void stop() {
-        if (executor != null) {
-            executor.shutdownNow();
+        running = false;
+        haltLoop();
+        if (recorder != null) {
+            recorder.close();
+        }
+        if (remote != null) remote.close();
+    }
+
+    // El bucle solo gira mientras el panel está en pantalla: al quitarlo de la ventana
+    // (o al recrearla con ESC) se para, y vuelve a arrancar al añadirlo.
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (running) runLoop();
+    }
+
+    @Override
+    public void removeNotify() {
+        haltLoop();
+        super.removeNotify();
+    }
+
+    private void runLoop() {
+        if (renderer != null) renderer.start(loop); // El hilo de dibujado dirige el bucle
+        else loop.start();
+    }
+
+    private void haltLoop() {
+        if (renderer != null) renderer.stop();
+        if (loop != null) loop.stop();
+    }
+
+    // En modo activo el foco lo necesita el Canvas, que es quien recibe las teclas
+    @Override
+    public boolean requestFocusInWindow() {
+        return renderer != null ? renderer.requestFocusInWindow() : super.requestFocusInWindow();
+    }
+
+    // Paso fijo de simulación: clics pendientes, física y temporizador.
+    // @param dt Duración del paso (nanosegundos).
+    @Override
+    public void step(long dt) {
+        long t0 = System.nanoTime();
+        if (remote != null) {
+            long end = input.published();
+            for (long s = input.head(); s < end; s++) remote.click(input.x(s), input.y(s));
+            input.release(end);
+            metrics.recordSimulation(System.nanoTime() - t0);
+            return;
+        }
+        if (getWidth() > 0 && getHeight() > 0) {
+            if (recorder != null) recorder.resize(world.getTick(), getWidth(), getHeight());
+            world.resize(getWidth(), getHeight());
+        }
+        applyClicks();
+        world.step(dt);
+        if (recorder != null) recorder.afterStep(world);
+        metrics.recordSimulation(System.nanoTime() - t0);
+    }
+
+    // Publica el frame y solicita el repintado; el factor de interpolación se recalcula al pintar.
+    // En modo activo el hilo de dibujado ya pinta cada frame.
+    @Override
+    public void render(double alpha) {
+        publish();
+        if (renderer != null) return;
+        if (damage == null) {
+            repaint();
+            return;
+        }
+        // RepaintManager uniría todas las zonas en un único rectángulo, así que se pintan
+        // una a una en el EDT. Si aún hay una petición pendiente, no se encola otra.
+        if (damagePending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::paintDamage);
+        }
+    }
+
+    // Copia el estado actual en el buffer trasero y lo publica.
+    private void publish() {
+        WorldFrame f = frames.back();
+        if (remote != null) {
+            remote.fill(f, System.nanoTime());
+            frames.publish();
+            return;
+        }
+        f.balls.copyFrom(world.balls());
+        f.timeLeft = world.getTimeLeft();
+        f.gameOver = world.isGameOver();
+        f.physicsMillis = world.getPhysicsMillis();
+        f.contacts = world.getContacts();
+        f.inputSeq = appliedSeq;
+        frames.publish();
+    }
+
+    // Repinta en el EDT las zonas dañadas entre el último frame pintado y el publicado.
+    private void paintDamage() {
+        damagePending.set(false);
+        DamageTracker d = damage;
+        if (d == null) return;
+        int w = getWidth();
+        int h = getHeight();
+        WorldFrame f = frames.acquire();
+        d.addBalls(f.balls, w, h);
+        d.addRect(0, 0, 320, 60);        // Tiempo
+        d.addRect(w - 320, 0, 320, 60);  // Bolas restantes
+        d.addRect(0, h - 45, w, 45);     // Estadísticas
+        if (showMetrics) {
+            Rectangle m = MetricsOverlay.BOUNDS;
+            d.addRect(m.x, m.y, m.width, m.height);
+        }
+        int n = d.drain(damageRegions);
+        painting = f; // Todas las zonas se pintan con el mismo frame
+        long t0 = System.nanoTime();
+        try {
+            if (n < 0) {
+                paintImmediately(0, 0, w, h);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                int k = i * 4;
+                paintImmediately(damageRegions[k], damageRegions[k + 1], damageRegions[k + 2], damageRegions[k + 3]);
+            }
+        } finally {
+            painting = null;
+            long nanos = System.nanoTime() - t0;
+            metrics.recordPaint(nanos);
+            quality.record(nanos);
+            // paintImmediately ya ha volcado el buffer de Swing a la ventana
+            Toolkit.getDefaultToolkit().sync();
+            reportInput();
         }
     }
 
@@ -105,114 +305,201 @@ public class Surface extends JPanel implements KeyListener, MouseListener {
     // @return true si está pausada, false en caso contrario.
     public synchronized boolean isPaused() { return paused; }
 
-    // Actualiza la posición de todas las bolas.
-    // @param lapse Tiempo transcurrido desde el último frame (nanosegundos).
-    private void next(long lapse) {
-        int w = getWidth();
-        int h = getHeight();
-        for (Ball ball : balls) ball.move(lapse, w, h);
+    // Activa o desactiva los choques entre bolas.
+    // @param enabled true para que las bolas choquen entre sí.
+    // Debe llamarse antes de start().
+    public void setCollisions(boolean enabled) {
+        world.setCollisions(enabled);
     }
 
-    // Dibuja todas las bolas y el tiempo restante en pantalla.
+    // Dibuja el frame con Swing, salvo en modo activo, donde lo hace el ActiveRenderer.
     // @param g Contexto gráfico.
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        for (Ball ball : balls) {
-            g2d.setColor(ball.getColor());
-            g2d.fillOval((int) ball.getX(), (int) ball.getY(), ball.getSize(), ball.getSize());
-            g2d.setColor(Color.BLACK);
-            g2d.drawOval((int) ball.getX(), (int) ball.getY(), ball.getSize(), ball.getSize());
+        if (renderer != null) {
+            super.paintComponent(g);
+            return;
+        }
+        double alpha = loop != null ? loop.interpolation() : 1.0;
+        if (painting != null) {
+            paintFrame((Graphics2D) g, getWidth(), getHeight(), alpha); // paintDamage ya mide la pasada
+            return;
+        }
+        paintMeasured((Graphics2D) g, getWidth(), getHeight(), alpha);
+        // RepaintManager vuelca el buffer a la ventana al acabar esta pasada: la latencia
+        // se anota en el siguiente evento del EDT, cuando el frame ya se ha mostrado
+        if (!shownPending) {
+            shownPending = true;
+            SwingUtilities.invokeLater(shownTask);
+        }
+    }
+
+    // El frame pintado por RepaintManager ya está en la ventana.
+    private void frameShown() {
+        shownPending = false;
+        Toolkit.getDefaultToolkit().sync();
+        reportInput();
+    }
+
+    // Pinta un frame completo anotando cuánto tarda.
+    private void paintMeasured(Graphics2D g2d, int w, int h, double alpha) {
+        long t0 = System.nanoTime();
+        paintFrame(g2d, w, h, alpha);
+        long nanos = System.nanoTime() - t0;
+        metrics.recordPaint(nanos);
+        quality.record(nanos);
+    }
+
+    // Dibuja el fondo, todas las bolas y el tiempo restante.
+    // @param g2d Contexto gráfico.
+    // @param w Ancho del área de dibujo.
+    // @param h Alto del área de dibujo.
+    // @param alpha Factor de interpolación de la simulación.
+    void paintFrame(Graphics2D g2d, int w, int h, double alpha) {
+        WorldFrame f = painting != null ? painting : frames.acquire();
+        if (tiled != null) {
+            tiled.paint(g2d, f.balls, alpha, w, h, quality.level(), getBackground());
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        } else {
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, w, h);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Ball.paint(g2d, f.balls, alpha, sprites, quality.level());
         }
         // Dibuja el tiempo restante (esquina superior izquierda)
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 24));
-        g2d.drawString("Tiempo: " + timeLeft, 20, 40);
+        timeLabel.set(f.timeLeft).draw(g2d, 20, 40);
 
         // Dibuja las bolas restantes (esquina superior derecha)
-        String bolasRestantes = "Bolas: " + balls.size();
-        int textWidth = g2d.getFontMetrics().stringWidth(bolasRestantes);
-        g2d.drawString(bolasRestantes, getWidth() - textWidth - 20, 40);
+        ballsLabel.set(f.balls.size());
+        ballsLabel.draw(g2d, w - ballsLabel.width() - 20, 40);
+
+        // Coste de la física (esquina inferior izquierda)
+        long now = System.nanoTime();
+        if (now - statsUpdated >= STATS_REFRESH_NANOS) {
+            statsUpdated = now;
+            statsLabel.setText(stats(f));
+        }
+        statsLabel.draw(g2d, 20, h - 20);
+
+        if (showMetrics) overlay.paint(g2d, metrics);
 
         // Si el juego ha terminado, dibuja el mensaje de derrota centrado
-        if (gameOver) {
-            String msg = "¡Tiempo agotado! Has perdido la partida.";
-            g2d.setFont(new Font("Arial", Font.BOLD, 36));
-            FontMetrics fm = g2d.getFontMetrics();
-            int msgWidth = fm.stringWidth(msg);
-            int x = (getWidth() - msgWidth) / 2;
-            int y = getHeight() / 2;
+        if (f.gameOver) {
+            int msgWidth = bannerLabel.width();
+            int x = (w - msgWidth) / 2;
+            int y = h / 2;
             // Fondo semitransparente
-            g2d.setColor(new Color(0, 0, 0, 180));
+            g2d.setColor(RenderResources.SHADE);
             g2d.fillRoundRect(x - 30, y - 50, msgWidth + 60, 80, 30, 30);
             // Texto
             g2d.setColor(Color.RED);
-            g2d.drawString(msg, x, y);
+            bannerLabel.draw(g2d, x, y);
         }
+        drawnSeq = f.inputSeq;
+    }
+
+    // Anota la latencia de las pulsaciones que se ven por primera vez en el último frame
+    // dibujado. Se llama cuando ese frame ya se ha mostrado, no al terminar de dibujarlo.
+    // Si entre dos frames mostrados se aplicaron más de appliedAt.length, las más
+    // antiguas ya se han sobrescrito y no se cuentan.
+    private void reportInput() {
+        long seq = drawnSeq;
+        if (seq <= reportedSeq) return;
+        long now = System.nanoTime();
+        for (long s = Math.max(reportedSeq, seq - appliedAt.length); s < seq; s++) {
+            metrics.recordInput(now - appliedAt[(int) (s % appliedAt.length)]);
+        }
+        reportedSeq = seq;
+    }
+
+    // Línea de estadísticas de los subsistemas.
+    private String stats(WorldFrame f) {
+        String fisica = String.format("Física: %.2f ms", f.physicsMillis);
+        if (world.hasCollisions()) fisica += " | choques: " + f.contacts;
+        fisica += String.format(" | sprites: %d (%.0f%% aciertos)", sprites.getEntries(), sprites.getHitRatio() * 100);
+        fisica += String.format(" | calidad: %s%s", quality.level().label, quality.isAutomatic() ? " (auto)" : "");
+        SoundEngine sound = SoundFX.engine();
+        fisica += String.format(" | audio: %.1f ms, %d voces perdidas", sound.getLatencyMillis(), sound.getStolen());
+        Assets assets = Assets.shared();
+        fisica += String.format(" | recursos: %d en %.0f ms", assets.getLoaded(), assets.getTotalLoadMillis());
+        PipelineProbe.Result java2d = PipelineProbe.result();
+        if (java2d != null) fisica += " | Java2D: " + java2d.pipeline + (java2d.accelerated ? "" : " sin aceleración");
+        if (remote != null) {
+            fisica += String.format(" | red: jugador %d de %d, %d aciertos, %.0f B/paso",
+                    remote.getPlayer() + 1, remote.getPlayers(), remote.getHits(remote.getPlayer()), remote.getBytesPerTick());
+            if (!remote.isStarted()) fisica += ", esperando jugadores";
+        }
+        if (input.getDropped() > 0) fisica += " | clics perdidos: " + input.getDropped();
+        if (damage != null) fisica += String.format(" | relleno ahorrado: %.0f%%", damage.getSavedFraction() * 100);
+        if (renderer != null) {
+            fisica += String.format(" | frame: %.2f ms (peor %.2f ms)",
+                    renderer.getFrameMillis(), renderer.getMaxFrameMillis());
+        }
+        return fisica;
     }
 
     // --- KeyListener methods ---
 
     @Override public void keyTyped(KeyEvent e) {}
 
-    // Permite pausar o reanudar el juego pulsando la tecla 'P'.
+    // Permite pausar o reanudar el juego pulsando la tecla 'P' y mostrar las métricas con F3.
     @Override public void keyPressed(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_P) {
             synchronized (this) { if (paused) resume(); else pause(); }
+        } else if (e.getKeyCode() == KeyEvent.VK_F3) {
+            showMetrics = !showMetrics;
+            if (damage != null) damage.invalidate(); // Al ocultarlo hay que borrar el panel entero
+            repaint();
         }
     }
     @Override public void keyReleased(KeyEvent e) {}
 
     // --- Métodos del MouseListener ---
 
-    // Gestiona la mecánica de clics:
-    // - Si aciertas la bola más al frente, la elimina y suma tiempo.
-    // - Si fallas, añade una bola y resta tiempo.
+    // Encola la pulsación con su instante; la simulación la aplica antes del siguiente paso.
+    // Se usa mousePressed y no mouseClicked: no espera a soltar el botón y cuenta aunque el
+    // ratón se mueva entre pulsar y soltar. Al instante se le resta lo que el evento ha
+    // esperado en la cola del EDT (getWhen() va en milisegundos).
     @Override
-    public void mouseClicked(MouseEvent e) {
-        if (paused || timeLeft <= 0) return;
-
-        int mx = e.getX();
-        int my = e.getY();
-
-        List<Integer> clickedBalls = new ArrayList<>();
-        for (int i = 0; i < balls.size(); i++) {
-            Ball ball = balls.get(i);
-            double dx = mx - (ball.getX() + ball.getSize() / 2.0);
-            double dy = my - (ball.getY() + ball.getSize() / 2.0);
-            double dist = Math.sqrt(dx * dx + dy * dy);
-            if (dist <= ball.getSize() / 2.0) {
-                clickedBalls.add(i);
-            }
-        }
+    public void mousePressed(MouseEvent e) {
+        if (isPaused()) return;
+        long now = System.nanoTime();
+        long queued = System.currentTimeMillis() - e.getWhen();
+        if (queued > 0 && queued < 1000) now -= queued * 1_000_000L;
+        input.offer(e.getX(), e.getY(), now);
+    }
 
-        if (!clickedBalls.isEmpty() && clickedBalls.get(clickedBalls.size() - 1) == balls.size() - 1) {
-            balls.remove(balls.size() - 1);
-            timeLeft += timeBonus;
-            SoundFX.play("src/main/resources/acierto.wav"); // Sonido de acierto
-            // Comprobar victoria
-            if (balls.isEmpty() && !gameOver) {
-                paused = true;
-                gameOver = true;
-                SwingUtilities.invokeLater(() -> main.showEndPanel(true)); // true = victoria
-                return;
-            }
-        } else {
-            balls.add(0, createRandomBall(getWidth(), getHeight()));
-            timeLeft -= timePenalty;
-            if (timeLeft < 0) timeLeft = 0;
-            if (timeLeft == 0 && !gameOver) {
-                paused = true;
-                gameOver = true;
-                SwingUtilities.invokeLater(() -> main.showEndPanel(false)); // false = derrota
-            }
-            SoundFX.play("src/main/resources/fallo.wav"); // Sonido de fallo
+    // Aplica en el hilo de la simulación, de una vez, las pulsaciones recibidas desde el
+    // último paso. Con la partida pausada o terminada se descartan.
+    private void applyClicks() {
+        long end = input.published();
+        for (long s = input.head(); s < end && !paused && !world.isGameOver(); s++) {
+            int x = input.x(s);
+            int y = input.y(s);
+            if (recorder != null) recorder.click(world.getTick(), x, y);
+            world.click(x, y);
+            appliedAt[(int) (appliedSeq++ % appliedAt.length)] = input.time(s);
         }
-        repaint();
+        input.release(end);
+    }
+
+    // --- Avisos de la partida (hilo de la simulación) ---
+
+    @Override public void onHit() { SoundFX.play("acierto.wav"); } // Sonido de acierto
+    @Override public void onMiss() { SoundFX.play("fallo.wav"); } // Sonido de fallo
+
+    // Detiene la partida y muestra el EndPanel de victoria o derrota.
+    // Las partidas en red no cuentan para los récords (resultado null).
+    @Override
+    public void onGameOver(boolean won) {
+        paused = true;
+        ScoreStore.Entry result = remote != null ? null : new ScoreStore.Entry(numBalls, initialTime,
+                world.getTimeLeft(), world.getHits(), world.getMisses(), won, world.hasCollisions(), System.currentTimeMillis());
+        SwingUtilities.invokeLater(() -> main.showEndPanel(won, result));
     }
-    @Override public void mousePressed(MouseEvent e) {}
+
+    @Override public void mouseClicked(MouseEvent e) {}
     @Override public void mouseReleased(MouseEvent e) {}
     @Override public void mouseEntered(MouseEvent e) {}
     @Override public void mouseExited(MouseEvent e) {}
@@ -220,21 +507,7 @@ public class Surface extends JPanel implements KeyListener, MouseListener {
     // Establece el tiempo inicial para el juego.
     // @param t Tiempo en segundos.
     public void setInitialTime(int t) {
-        this.timeLeft = t;
-    }
-
-    // Actualiza el temporizador del juego cada segundo.
-    // Si el tiempo llega a cero, pausa el juego y muestra un mensaje.
-    private void updateTimer() {
-        long now = System.currentTimeMillis();
-        if (!paused && timeLeft > 0 && now - lastSecond >= 1000) {
-            timeLeft--;
-            lastSecond = now;
-            if (timeLeft <= 0 && !gameOver) {
-                paused = true;
-                gameOver = true;
-                SwingUtilities.invokeLater(() -> main.showEndPanel(false)); // <-- Muestra el EndPanel de derrota
-            }
-        }
+        initialTime = t;
+        world.setInitialTime(t);
     }
 }
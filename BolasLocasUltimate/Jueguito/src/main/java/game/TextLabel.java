@@ -0,0 +1,63 @@
+package game;
+
+import java.awt.*;
+
+// Texto del HUD que solo se vuelve a componer y medir cuando cambia su valor.
+// Con un valor estable dibujarlo no reserva memoria: se reutilizan el String y su ancho.
+public class TextLabel {
+    private final Font font;
+    private final String prefix;
+    private final String suffix;
+    private int value = Integer.MIN_VALUE;
+    private String text = "";
+    private int width;
+
+    // Etiqueta fija o cuyo texto se da entero con setText().
+    public TextLabel(Font font) {
+        this(font, "", "");
+    }
+
+    // Etiqueta de la forma prefijo + número + sufijo, por ejemplo "Tiempo: " + 30.
+    public TextLabel(Font font, String prefix, String suffix) {
+        this.font = font;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    // Cambia el número mostrado; si es el mismo no hace nada.
+    public TextLabel set(int v) {
+        if (v != value || text.isEmpty()) {
+            value = v;
+            layout(prefix + v + suffix);
+        }
+        return this;
+    }
+
+    // Cambia el texto completo; si es el mismo (misma instancia o mismo contenido) no hace nada.
+    public TextLabel setText(String s) {
+        if (s != text && !s.equals(text)) layout(s);
+        return this;
+    }
+
+    public String text() { return text; }
+    public int width() { return width; }
+    public Font font() { return font; }
+
+    // Dibuja el texto con su fuente.
+    // @param x Posición izquierda de la línea base.
+    // @param y Posición de la línea base.
+    public void draw(Graphics2D g, int x, int y) {
+        g.setFont(font);
+        g.drawString(text, x, y);
+    }
+
+    // Dibuja el texto centrado horizontalmente en cx.
+    public void drawCentered(Graphics2D g, int cx, int y) {
+        draw(g, cx - width / 2, y);
+    }
+
+    private void layout(String s) {
+        text = s;
+        width = RenderResources.width(font, s);
+    }
+}
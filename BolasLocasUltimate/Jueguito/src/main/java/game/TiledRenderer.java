@@ -0,0 +1,257 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Dibujado por software repartido entre núcleos.
+// El frame se divide en baldosas de tileSize x tileSize. Primero, en el hilo que pinta,
+// se reparte cada bola en las baldosas que toca (en orden de fondo a frente, así que
+// cada baldosa conserva el orden del BallStore) y se resuelve su sprite. Después cada
+// baldosa se rasteriza en un ForkJoinPool, mezclando los píxeles del sprite a mano sobre
+// el int[] de una única BufferedImage; las baldosas no se solapan, así que los hilos
+// nunca escriben el mismo píxel. Al final el frame se copia con un solo drawImage.
+// El resultado es el mismo con uno que con muchos hilos.
+// Solo se rasterizan las baldosas que tocan el recorte, así que se combina con el
+// repintado por zonas. Todos los arrays se reutilizan entre frames.
+// Se activa con -Dgame.tiled=true; -Dgame.tileSize cambia el lado de la baldosa (128).
+public class TiledRenderer {
+    private static final int MIN_PARALLEL_TILES = 4; // Con menos baldosas no compensa repartir
+
+    private final ForkJoinPool pool;
+    private final int tileSize;
+    private final SpriteCache sprites = new SpriteCache(32L << 20, 4096); // Sin gc: siempre INT_ARGB_PRE
+    private final Rectangle clip = new Rectangle();
+    private final int[] palette = new int[512]; // Colores de RenderQuality.MINIMAL
+
+    private BufferedImage frame;
+    private int[] pixels;
+    private int width;
+    private int height;
+    private int cols;
+
+    // Reparto por baldosas (ordenación por cuentas): las bolas de la baldosa t son
+    // items[tileStart[t] .. tileStart[t + 1])
+    private int[] tileStart = new int[1];
+    private int[] items = new int[0];
+    // Datos por bola calculados al repartir
+    private int[] bx = new int[0];
+    private int[] by = new int[0];
+    private int[] bs = new int[0];     // Lado del sprite, o del cuadrado en MINIMAL
+    private int[] rgb = new int[0];    // Color del cuadrado en MINIMAL
+    private int[][] spritePixels = new int[0][];
+    private int[] range = new int[0];  // Baldosas que toca cada bola: tx0, ty0, tx1, ty1 (-1 si ninguna)
+
+    // Baldosas visibles en este frame
+    private int tx0, ty0, tx1, ty1;
+    private int background;
+
+    // Constructor.
+    // @param pool Hilos que rasterizan las baldosas.
+    // @param tileSize Lado de cada baldosa en píxeles.
+    public TiledRenderer(ForkJoinPool pool, int tileSize) {
+        this.pool = pool;
+        this.tileSize = tileSize;
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = (i >> 6) << 21 | 16 << 16 | (i >> 3 & 7) << 13 | 16 << 8 | (i & 7) << 5 | 16;
+        }
+    }
+
+    // Con el ForkJoinPool común y el lado de baldosa de -Dgame.tileSize.
+    public static TiledRenderer fromSystemProperties() {
+        return new TiledRenderer(ForkJoinPool.commonPool(), Math.max(16, Integer.getInteger("game.tileSize", 128)));
+    }
+
+    // Dibuja el fondo y todas las bolas, igual que fillRect + Ball.paint.
+    // @param g Destino; solo se rasteriza lo que cae dentro de su recorte.
+    // @param balls Bolas, de fondo a frente.
+    // @param alpha Factor de interpolación.
+    // @param w Ancho del área de dibujo.
+    // @param h Alto del área de dibujo.
+    // @param quality Acabado de las bolas.
+    // @param bg Color de fondo.
+    public void paint(Graphics2D g, BallStore balls, double alpha, int w, int h, RenderQuality quality, Color bg) {
+        if (w <= 0 || h <= 0) return;
+        resize(w, h);
+        clip.setBounds(0, 0, w, h);
+        g.getClipBounds(clip); // Sin recorte deja el frame entero
+        int cx0 = Math.max(clip.x, 0), cy0 = Math.max(clip.y, 0);
+        int cx1 = Math.min(clip.x + clip.width, w), cy1 = Math.min(clip.y + clip.height, h);
+        if (cx0 >= cx1 || cy0 >= cy1) return;
+        clip.setBounds(cx0, cy0, cx1 - cx0, cy1 - cy0);
+        tx0 = clip.x / tileSize;
+        ty0 = clip.y / tileSize;
+        tx1 = (clip.x + clip.width - 1) / tileSize + 1;
+        ty1 = (clip.y + clip.height - 1) / tileSize + 1;
+        background = bg.getRGB();
+
+        bin(balls, alpha, quality);
+        int visible = (tx1 - tx0) * (ty1 - ty0);
+        if (visible < MIN_PARALLEL_TILES || pool.getParallelism() < 2) {
+            rasterize(0, visible);
+        } else {
+            pool.invoke(new Tiles(this, 0, visible));
+        }
+        g.drawImage(frame, 0, 0, null);
+    }
+
+    public int getTileSize() { return tileSize; }
+
+    private void resize(int w, int h) {
+        if (frame != null && width == w && height == h) return;
+        frame = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        width = w;
+        height = h;
+        cols = (w + tileSize - 1) / tileSize;
+        int tiles = cols * ((h + tileSize - 1) / tileSize);
+        if (tileStart.length < tiles + 1) tileStart = new int[tiles + 1];
+    }
+
+    // Calcula posición, sprite y baldosas de cada bola y las reparte por baldosas.
+    // Los arrays por bola se indexan desde 0: la bola del fondo es balls.first().
+    private void bin(BallStore balls, double alpha, RenderQuality quality) {
+        int n = balls.size(), first = balls.first();
+        if (bx.length < n) {
+            int cap = Math.max(n, bx.length * 2);
+            bx = new int[cap];
+            by = new int[cap];
+            bs = new int[cap];
+            rgb = new int[cap];
+            spritePixels = new int[cap][];
+            range = new int[cap * 4];
+        }
+        boolean useSprites = quality.usesSprites();
+        int tiles = cols * ((height + tileSize - 1) / tileSize);
+        Arrays.fill(tileStart, 0, tiles + 1, 0);
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            int b = first + i;
+            int px = (int) balls.renderX(b, alpha);
+            int py = (int) balls.renderY(b, alpha);
+            int argb = balls.getColor(b);
+            int s;
+            if (useSprites) {
+                BufferedImage sprite = sprites.get(null, quality.size((int) balls.getSize(b)), quality.color(argb),
+                        quality.antialias, quality.outline);
+                s = sprite.getWidth();
+                spritePixels[i] = ((DataBufferInt) sprite.getRaster().getDataBuffer()).getData();
+            } else {
+                s = (int) balls.getSize(b);
+                spritePixels[i] = null;
+                rgb[i] = palette[(argb >> 21 & 7) << 6 | (argb >> 13 & 7) << 3 | (argb >> 5 & 7)];
+            }
+            bx[i] = px;
+            by[i] = py;
+            bs[i] = s;
+            int k = i * 4;
+            // Baldosas que toca, recortadas a las visibles
+            int cx0 = Math.max(tx0, Math.floorDiv(Math.max(px, clip.x), tileSize));
+            int cy0 = Math.max(ty0, Math.floorDiv(Math.max(py, clip.y), tileSize));
+            int cx1 = Math.min(tx1, Math.floorDiv(Math.min(px + s, clip.x + clip.width) - 1, tileSize) + 1);
+            int cy1 = Math.min(ty1, Math.floorDiv(Math.min(py + s, clip.y + clip.height) - 1, tileSize) + 1);
+            if (s <= 0 || cx0 >= cx1 || cy0 >= cy1) {
+                range[k] = -1;
+                continue;
+            }
+            range[k] = cx0;
+            range[k + 1] = cy0;
+            range[k + 2] = cx1;
+            range[k + 3] = cy1;
+            for (int ty = cy0; ty < cy1; ty++) {
+                for (int tx = cx0; tx < cx1; tx++) tileStart[ty * cols + tx + 1]++;
+            }
+            total += (cx1 - cx0) * (cy1 - cy0);
+        }
+        for (int t = 0; t < tiles; t++) tileStart[t + 1] += tileStart[t];
+        if (items.length < total) items = new int[Math.max(total, items.length * 2)];
+        // Segunda pasada: rellena usando tileStart como cursor y lo deja desplazado una baldosa
+        for (int i = 0; i < n; i++) {
+            int k = i * 4;
+            if (range[k] < 0) continue;
+            for (int ty = range[k + 1]; ty < range[k + 3]; ty++) {
+                for (int tx = range[k]; tx < range[k + 2]; tx++) items[tileStart[ty * cols + tx]++] = i;
+            }
+        }
+        // Tras rellenar, tileStart[t] apunta al final de la baldosa t: se desplaza para recuperar los inicios
+        System.arraycopy(tileStart, 0, tileStart, 1, tiles);
+        tileStart[0] = 0;
+    }
+
+    // Rasteriza las baldosas visibles [from, to), numeradas por filas dentro de las visibles.
+    void rasterize(int from, int to) {
+        int visibleCols = tx1 - tx0;
+        int stride = width;
+        for (int v = from; v < to; v++) {
+            int tx = tx0 + v % visibleCols;
+            int ty = ty0 + v / visibleCols;
+            // Solo la parte de la baldosa que cae en el recorte
+            int x0 = Math.max(tx * tileSize, clip.x);
+            int y0 = Math.max(ty * tileSize, clip.y);
+            int x1 = Math.min((tx + 1) * tileSize, clip.x + clip.width);
+            int y1 = Math.min((ty + 1) * tileSize, clip.y + clip.height);
+            for (int y = y0; y < y1; y++) Arrays.fill(pixels, y * stride + x0, y * stride + x1, background);
+            int t = ty * cols + tx;
+            for (int j = tileStart[t], end = tileStart[t + 1]; j < end; j++) {
+                int i = items[j];
+                if (spritePixels[i] != null) blend(spritePixels[i], bs[i], bx[i], by[i], x0, y0, x1, y1, stride);
+                else fill(rgb[i], bs[i], bx[i], by[i], x0, y0, x1, y1, stride);
+            }
+        }
+    }
+
+    // Mezcla un sprite ARGB premultiplicado sobre el frame (SrcOver), recortado a la baldosa.
+    private void blend(int[] src, int side, int px, int py, int x0, int y0, int x1, int y1, int stride) {
+        int sx0 = Math.max(px, x0), sy0 = Math.max(py, y0);
+        int sx1 = Math.min(px + side, x1), sy1 = Math.min(py + side, y1);
+        for (int y = sy0; y < sy1; y++) {
+            int s = (y - py) * side + (sx0 - px);
+            int d = y * stride + sx0;
+            for (int x = sx0; x < sx1; x++, s++, d++) {
+                int c = src[s];
+                int a = c >>> 24;
+                if (a == 0) continue;
+                if (a == 255) {
+                    pixels[d] = c;
+                    continue;
+                }
+                int inv = 256 - a;
+                int dst = pixels[d];
+                int rb = ((dst & 0xFF00FF) * inv >>> 8) & 0xFF00FF;
+                int gr = ((dst & 0x00FF00) * inv >>> 8) & 0x00FF00;
+                pixels[d] = (c & 0xFFFFFF) + rb + gr;
+            }
+        }
+    }
+
+    private void fill(int color, int side, int px, int py, int x0, int y0, int x1, int y1, int stride) {
+        int sx0 = Math.max(px, x0), sy0 = Math.max(py, y0);
+        int sx1 = Math.min(px + side, x1), sy1 = Math.min(py + side, y1);
+        for (int y = sy0; y < sy1; y++) Arrays.fill(pixels, y * stride + sx0, y * stride + sx1, color);
+    }
+
+    // Grupo de baldosas [from, to) que se divide por la mitad hasta quedar en una fila.
+    private static final class Tiles extends RecursiveAction {
+        private final TiledRenderer r;
+        private final int from, to;
+
+        Tiles(TiledRenderer r, int from, int to) {
+            this.r = r;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 2) {
+                r.rasterize(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Tiles(r, from, mid), new Tiles(r, mid, to));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Triple buffer sin bloqueos entre un productor y un consumidor.
+// El productor escribe siempre en su buffer trasero y lo publica intercambiándolo
+// con el del medio; el consumidor, si hay uno nuevo en el medio, lo cambia por el
+// suyo. Ninguno espera al otro y el consumidor nunca ve un buffer a medio escribir.
+public class TripleBuffer<T> {
+    private static final int FRESH = 4; // Marca de "el buffer del medio es nuevo"
+
+    private final Object[] buffers;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;  // Solo lo toca el productor
+    private int front = 2; // Solo lo toca el consumidor
+
+    public TripleBuffer(T a, T b, T c) {
+        buffers = new Object[] { a, b, c };
+    }
+
+    // Buffer en el que escribe el productor.
+    @SuppressWarnings("unchecked")
+    public T back() { return (T) buffers[back]; }
+
+    // Publica el buffer trasero y pasa a escribir en otro libre.
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & 3;
+    }
+
+    // Devuelve el último buffer publicado. El consumidor puede leerlo sin
+    // sincronización hasta la siguiente llamada.
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & 3;
+        }
+        return (T) buffers[front];
+    }
+}
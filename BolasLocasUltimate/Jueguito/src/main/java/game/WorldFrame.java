@@ -0,0 +1,22 @@
+package game;
+
+// Estado del mundo tal y como se dibuja: una copia de las bolas y los datos del HUD.
+// La simulación la rellena y la publica en un TripleBuffer; a partir de ahí nadie
+// la modifica hasta que el renderizador la devuelve, así que se lee sin bloqueos.
+public class WorldFrame {
+    final BallStore balls;
+    int timeLeft;
+    boolean gameOver;
+    double physicsMillis;
+    int contacts;
+    long inputSeq; // Pulsaciones aplicadas a la partida hasta este frame
+
+    public WorldFrame(int capacity) {
+        balls = new BallStore(capacity);
+    }
+
+    // Terna de frames para intercambiar entre simulación y dibujado.
+    public static TripleBuffer<WorldFrame> tripleBuffer(int capacity) {
+        return new TripleBuffer<>(new WorldFrame(capacity), new WorldFrame(capacity), new WorldFrame(capacity));
+    }
+}
@@ -0,0 +1,130 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Operaciones básicas del BallStore: añadir, quitar conservando el orden, hit testing y huella.
+class BallStoreTest {
+    // Añade n bolas al frente; la coordenada x de cada una es su número de orden.
+    private static BallStore filled(int n) {
+        BallStore b = new BallStore(4);
+        for (int i = 0; i < n; i++) b.add(i, 0, 10, 0, 1, BallStore.argb(i, 0, 0));
+        return b;
+    }
+
+    // Coordenadas x de fondo a frente.
+    private static double[] order(BallStore b) {
+        double[] xs = new double[b.size()];
+        for (int i = b.first(), k = 0; i < b.end(); i++, k++) xs[k] = b.getX(i);
+        return xs;
+    }
+
+    @Test
+    void addGrowsAndKeepsOrder() {
+        BallStore b = filled(100);
+        assertEquals(100, b.size());
+        assertEquals(b.end() - 1, b.front());
+        for (int i = b.first(), k = 0; i < b.end(); i++, k++) {
+            assertEquals(k, b.getX(i));
+            assertEquals(BallStore.argb(k, 0, 0), b.getColor(i));
+        }
+    }
+
+    @Test
+    void removeShiftsTheShorterSide() {
+        BallStore b = filled(10);
+        int first = b.first();
+        b.remove(first + 2); // Cerca del fondo: se mueven las del fondo
+        assertArrayEquals(new double[] { 0, 1, 3, 4, 5, 6, 7, 8, 9 }, order(b));
+        assertEquals(first + 1, b.first());
+        int end = b.end();
+        b.remove(end - 3); // Cerca del frente: se mueven las del frente
+        assertArrayEquals(new double[] { 0, 1, 3, 4, 5, 6, 8, 9 }, order(b));
+        assertEquals(end - 1, b.end());
+        b.remove(b.front());
+        b.remove(b.first());
+        assertArrayEquals(new double[] { 1, 3, 4, 5, 6, 8 }, order(b));
+    }
+
+    @Test
+    void removeOutsideTheStoreFails() {
+        BallStore b = filled(3);
+        assertThrows(IndexOutOfBoundsException.class, () -> b.remove(b.end()));
+        assertThrows(IndexOutOfBoundsException.class, () -> b.remove(b.first() - 1));
+        b.clear();
+        assertThrows(IndexOutOfBoundsException.class, b::removeFront);
+    }
+
+    @Test
+    void topmostAtPrefersTheFront() {
+        BallStore b = new BallStore(4);
+        int back = b.add(0, 0, 20, 0, 0, 0);
+        int front = b.add(5, 5, 20, 0, 0, 0);
+        assertEquals(front, b.topmostAt(12, 12)); // Dentro de las dos
+        assertEquals(back, b.topmostAt(5, 10));
+        assertEquals(-1, b.topmostAt(0, 0));      // Esquina de la caja, fuera del círculo
+        assertTrue(b.contains(back, 10, 10));
+    }
+
+    @Test
+    void checksumFollowsStateNotIndices() {
+        BallStore a = filled(20);
+        BallStore c = new BallStore(64);
+        c.copyFrom(a);
+        assertEquals(a.checksum(), c.checksum());
+        assertEquals(a.version(), c.version());
+        c.x[c.first()] += 1e-9;
+        assertNotEquals(a.checksum(), c.checksum());
+    }
+
+    @Test
+    void addBackAndRemoveFrontKeepIndicesAndVersion() {
+        BallStore b = filled(4);
+        b.addBack(-2, 0, 10, 0, 1, 0); // first() era 0: recoloca y deja hueco al fondo
+        int version = b.version();
+        int front = b.front();
+        int back = b.addBack(-1, 0, 10, 0, 1, 0);
+        assertEquals(b.first(), back);
+        assertEquals(front, b.front()); // La del frente conserva su índice
+        b.removeFront();
+        assertEquals(front - 1, b.front());
+        assertTrue(b.isFront(front - 1));
+        assertEquals(version, b.version());
+        assertArrayEquals(new double[] { -1, -2, 0, 1, 2 }, order(b));
+        b.add(9, 0, 10, 0, 1, 0); // Puede reutilizar el índice quitado
+        assertNotEquals(version, b.version());
+    }
+
+    @Test
+    void recentreMakesRoomOnBothEnds() {
+        BallStore b = new BallStore(8);
+        double[] expected = new double[1000];
+        for (int i = 0; i < 500; i++) {
+            b.addBack(-i - 1, 0, 10, 0, 1, 0);
+            b.add(i, 0, 10, 0, 1, 0);
+        }
+        for (int i = 0; i < 1000; i++) expected[i] = i - 500;
+        assertArrayEquals(expected, order(b));
+
+        // Con hueco libre a un lado, añadir por el otro recoloca sin crecer
+        for (int i = 0; i < 1000; i++) b.removeFront();
+        int capacity = b.x.length;
+        for (int i = 0; i < 100; i++) b.addBack(i, 0, 10, 0, 1, 0);
+        assertEquals(capacity, b.x.length);
+        int version = b.version();
+        for (int i = 0; i < capacity; i++) b.addBack(i, 0, 10, 0, 1, 0);
+        assertTrue(b.x.length > capacity);
+        assertNotEquals(version, b.version()); // Las bolas han cambiado de índice
+        assertEquals(capacity + 100, b.size());
+    }
+
+    @Test
+    void frontOfAnEmptyStore() {
+        BallStore b = new BallStore(8);
+        assertEquals(-1, b.front());
+        assertFalse(b.isFront(0));
+        b.addBack(0, 0, 10, 0, 1, 0);
+        assertTrue(b.isFront(b.first()));
+    }
+}
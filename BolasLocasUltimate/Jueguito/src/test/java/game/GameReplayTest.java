@@ -0,0 +1,78 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Una partida grabada con GameRecorder se repite con GameReplay paso a paso, con las mismas huellas.
+class GameReplayTest {
+    private static final long STEP = 16_666_666L;
+
+    @TempDir
+    Path dir;
+
+    // Juega una partida con clics de un bot y la graba.
+    // @param unrecordedAt Paso en el que se aplica un clic sin grabarlo, o -1.
+    private static GameWorld play(Path file, long unrecordedAt) throws IOException {
+        long seed = 12345;
+        GameWorld w = new GameWorld(30, 1600, 900, seed);
+        w.setInitialTime(30);
+        w.setCollisions(true);
+        Random bot = new Random(9);
+        try (GameRecorder rec = new GameRecorder(file, seed, w, STEP)) {
+            while (!w.isGameOver()) {
+                if (w.getTick() == 300) {
+                    rec.resize(w.getTick(), 1200, 800);
+                    w.resize(1200, 800);
+                }
+                BallStore b = w.balls();
+                int t = b.front();
+                if (w.getTick() == unrecordedAt) w.click((int) (b.getX(t) + b.getSize(t) / 2), (int) (b.getY(t) + b.getSize(t) / 2));
+                if (bot.nextInt(15) == 0) {
+                    int x, y;
+                    if (bot.nextInt(10) != 0) {
+                        x = (int) (b.getX(t) + b.getSize(t) / 2);
+                        y = (int) (b.getY(t) + b.getSize(t) / 2);
+                    } else {
+                        x = bot.nextInt(1200);
+                        y = bot.nextInt(800);
+                    }
+                    rec.click(w.getTick(), x, y);
+                    w.click(x, y);
+                }
+                w.step(STEP);
+                rec.afterStep(w);
+            }
+        }
+        return w;
+    }
+
+    @Test
+    void replayMatchesTheRecordedGame() throws IOException {
+        Path file = dir.resolve("partida.blr");
+        GameWorld w = play(file, -1);
+        GameReplay.Result r = GameReplay.run(file);
+        assertTrue(w.getTick() > 300, "la partida debe llegar al cambio de tamaño");
+        assertEquals(-1, r.divergedAt);
+        assertTrue(r.complete);
+        assertEquals(w.getTick(), r.ticks);
+        assertEquals(w.isWon(), r.won);
+        assertEquals(STEP, r.stepNanos);
+        assertEquals(w.getHits() + w.getMisses(), r.clicks);
+        assertTrue(r.checksums >= w.getTick() / GameRecorder.CHECKSUM_TICKS);
+    }
+
+    @Test
+    void replayDetectsADivergence() throws IOException {
+        Path file = dir.resolve("desvio.blr");
+        play(file, 100);
+        GameReplay.Result r = GameReplay.run(file);
+        assertTrue(r.divergedAt >= 100, "desvío en " + r.divergedAt);
+        assertTrue(r.divergedAt <= 100 + GameRecorder.CHECKSUM_TICKS);
+    }
+}
@@ -0,0 +1,68 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cubos del Histogram: exactos para valores pequeños y con error relativo acotado después.
+class HistogramTest {
+    @Test
+    void smallValuesAreExact() {
+        Histogram h = new Histogram();
+        for (int v = 0; v < 32; v++) h.record(v);
+        assertEquals(32, h.getCount());
+        assertEquals(31, h.getMax());
+        assertEquals(15.5, h.getMean(), 1e-9);
+        assertEquals(15, h.percentile(50));
+        assertEquals(0, h.percentile(0));
+        assertEquals(31, h.percentile(100));
+    }
+
+    @Test
+    void singleValueStaysWithinItsBucket() {
+        long[] values = { 32, 33, 47, 48, 1000, 16_666_667, 1L << 40, Long.MAX_VALUE / 3 };
+        for (long v : values) {
+            Histogram h = new Histogram();
+            h.record(v);
+            h.record(1); // Para que el límite del cubo no se recorte al máximo
+            h.record(Long.MAX_VALUE);
+            long p = h.percentile(50);
+            assertTrue(p >= v, v + " -> " + p);
+            assertTrue(p - v <= v / 16, v + " -> " + p);
+        }
+    }
+
+    @Test
+    void percentilesMatchTheSortedSamples() {
+        Random r = new Random(3);
+        Histogram h = new Histogram();
+        long[] samples = new long[100_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (long) Math.exp(r.nextDouble() * 20);
+            h.record(samples[i]);
+        }
+        Arrays.sort(samples);
+        for (double p : new double[] { 1, 50, 90, 99, 99.9 }) {
+            long exact = samples[(int) Math.ceil(p / 100 * samples.length) - 1];
+            long approx = h.percentile(p);
+            assertTrue(approx >= exact && approx - exact <= exact / 16, "p" + p + ": " + approx + " vs " + exact);
+        }
+        assertEquals(samples[samples.length - 1], h.getMax());
+        assertEquals(h.getMax(), h.percentile(100));
+    }
+
+    @Test
+    void negativeValuesCountAsZeroAndResetClears() {
+        Histogram h = new Histogram();
+        h.record(-5);
+        assertEquals(0, h.getMax());
+        assertEquals(0, h.percentile(99));
+        assertEquals(1, h.getCount());
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.percentile(50));
+    }
+}
@@ -0,0 +1,67 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cola de pulsaciones: orden, descartes con la cola llena y un productor concurrente.
+class InputRingTest {
+    @Test
+    void capacityIsRoundedToAPowerOfTwo() {
+        assertEquals(256, new InputRing(256).capacity());
+        assertEquals(256, new InputRing(200).capacity());
+        for (int requested : new int[] { 0, 1, 3, 5, 100 }) {
+            int c = new InputRing(requested).capacity();
+            assertTrue(c >= requested && Integer.bitCount(c) == 1, requested + " -> " + c);
+        }
+    }
+
+    @Test
+    void batchReadAndDropWhenFull() {
+        InputRing ring = new InputRing(4);
+        for (int i = 0; i < 4; i++) assertTrue(ring.offer(i, -i, 100 + i));
+        assertFalse(ring.offer(9, 9, 9));
+        assertEquals(1, ring.getDropped());
+
+        long end = ring.published();
+        assertEquals(4, end - ring.head());
+        for (long s = ring.head(); s < end; s++) {
+            assertEquals(s, ring.x(s));
+            assertEquals(-s, ring.y(s));
+            assertEquals(100 + s, ring.time(s));
+        }
+        ring.release(end);
+        assertEquals(end, ring.head());
+
+        // Con sitio otra vez, las posiciones dan la vuelta al array
+        assertTrue(ring.offer(7, 8, 9));
+        assertEquals(4, ring.head());
+        assertEquals(7, ring.x(4));
+        assertEquals(1, ring.getDropped());
+    }
+
+    @Test
+    void concurrentProducerKeepsOrder() throws InterruptedException {
+        InputRing ring = new InputRing(64);
+        int total = 1_000_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                while (!ring.offer(i, i * 3, i)) Thread.yield();
+            }
+        });
+        producer.start();
+        long next = 0;
+        while (next < total) {
+            long end = ring.published();
+            for (long s = ring.head(); s < end; s++, next++) {
+                assertEquals(next, ring.x(s));
+                assertEquals(next * 3, ring.y(s));
+                assertEquals(next, ring.time(s));
+            }
+            ring.release(end);
+            if (end == ring.head()) Thread.yield();
+        }
+        producer.join();
+        assertEquals(total, ring.published());
+    }
+}
@@ -0,0 +1,149 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Registro de récords: recarga, compactación en generaciones y registros a medias.
+class ScoreStoreTest {
+    private static final int TOP = 5;
+
+    @TempDir
+    Path dir;
+
+    private static ScoreStore open(Path file, int compactRecords) throws InterruptedException {
+        ScoreStore s = new ScoreStore(file, TOP, compactRecords);
+        while (!s.isLoaded()) Thread.sleep(1);
+        return s;
+    }
+
+    private static Path current(ScoreStore s) {
+        long g = s.getGeneration();
+        return g == 0 ? s.getFile() : s.getFile().resolveSibling(s.getFile().getFileName() + "." + g);
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> st = Files.list(dir)) {
+            return st.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    // Comprueba totales y mejores partidas de una configuración contra la lista completa.
+    private static void assertBoard(ScoreStore s, List<ScoreStore.Entry> all, int balls) {
+        List<ScoreStore.Entry> mine = new ArrayList<>();
+        long hits = 0, wins = 0;
+        for (ScoreStore.Entry e : all) {
+            if (e.balls != balls) continue;
+            mine.add(e);
+            hits += e.hits;
+            if (e.won) wins++;
+        }
+        mine.sort((a, b) -> a.beats(b) ? -1 : b.beats(a) ? 1 : 0);
+        ScoreStore.Leaderboard lb = s.leaderboard(balls, 30);
+        assertEquals(mine.size(), lb.games);
+        assertEquals(hits, lb.hits);
+        assertEquals(wins, lb.wins);
+        assertEquals(Math.min(TOP, mine.size()), lb.top.size());
+        for (int i = 0; i < lb.top.size(); i++) assertEquals(mine.get(i).date, lb.top.get(i).date, "puesto " + i);
+    }
+
+    private static List<ScoreStore.Entry> record(ScoreStore s, int n, long firstDate) {
+        Random r = new Random(firstDate);
+        List<ScoreStore.Entry> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ScoreStore.Entry e = new ScoreStore.Entry(10 + 10 * r.nextInt(3), 30, r.nextInt(40),
+                    r.nextInt(50), r.nextInt(20), r.nextBoolean(), false, firstDate + i);
+            list.add(e);
+            s.record(e);
+        }
+        return list;
+    }
+
+    @Test
+    void compactsIntoANewGenerationAndReloads() throws Exception {
+        Path file = dir.resolve("scores.log");
+        ScoreStore s = open(file, 100);
+        List<ScoreStore.Entry> all = record(s, 1000, 1);
+        s.close(10_000);
+        assertTrue(s.getGeneration() > 0);
+        assertEquals(List.of("scores.log." + s.getGeneration()), files()); // Las anteriores se borran
+        for (int balls = 10; balls <= 30; balls += 10) assertBoard(s, all, balls);
+
+        ScoreStore again = open(file, 100);
+        assertEquals(s.getGeneration(), again.getGeneration());
+        for (int balls = 10; balls <= 30; balls += 10) assertBoard(again, all, balls);
+        all.addAll(record(again, 10, 5000));
+        again.close(10_000);
+        ScoreStore third = open(file, 100);
+        for (int balls = 10; balls <= 30; balls += 10) assertBoard(third, all, balls);
+        third.close(1000);
+    }
+
+    @Test
+    void tornRecordIsDropped() throws Exception {
+        Path file = dir.resolve("scores.log");
+        ScoreStore s = open(file, 1000);
+        List<ScoreStore.Entry> all = record(s, 20, 1);
+        s.close(10_000);
+        assertEquals(20, s.getRecords());
+        // Estropea el CRC del último registro, como si el juego se hubiera cerrado a medias
+        try (RandomAccessFile raf = new RandomAccessFile(current(s).toFile(), "rw")) {
+            long last = ScoreStore.HEADER + 19L * ScoreStore.RECORD;
+            raf.seek(last + 36);
+            raf.write(raf.read() ^ 0x55);
+        }
+        all.remove(19);
+        ScoreStore again = open(file, 1000);
+        assertEquals(19, again.getRecords());
+        for (int balls = 10; balls <= 30; balls += 10) assertBoard(again, all, balls);
+        // Lo que se escribe después ocupa el hueco del registro descartado
+        all.addAll(record(again, 5, 100));
+        again.close(10_000);
+        ScoreStore third = open(file, 1000);
+        assertEquals(24, third.getRecords());
+        for (int balls = 10; balls <= 30; balls += 10) assertBoard(third, all, balls);
+        third.close(1000);
+    }
+
+    @Test
+    void unfinishedGenerationIsIgnored() throws Exception {
+        Path file = dir.resolve("scores.log");
+        ScoreStore s = open(file, 1000);
+        List<ScoreStore.Entry> all = record(s, 50, 1);
+        s.close(10_000);
+        // Compactación cortada antes de escribir su número en la cabecera
+        ByteBuffer header = ByteBuffer.allocate(ScoreStore.HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(ScoreStore.MAGIC).put(ScoreStore.VERSION);
+        Files.write(dir.resolve("scores.log.1"), header.array());
+        Files.write(dir.resolve("scores.log.2"), new byte[0]);
+
+        ScoreStore again = open(file, 1000);
+        assertEquals(0, again.getGeneration());
+        assertEquals(List.of("scores.log"), files());
+        for (int balls = 10; balls <= 30; balls += 10) assertBoard(again, all, balls);
+        again.close(1000);
+    }
+
+    @Test
+    void notAScoresFileKeepsScoresInMemory() throws Exception {
+        Path file = dir.resolve("scores.log");
+        Files.write(file, "esto no es un registro".getBytes());
+        ScoreStore s = open(file, 1000);
+        List<ScoreStore.Entry> all = record(s, 10, 1);
+        s.close(10_000);
+        for (int balls = 10; balls <= 30; balls += 10) assertBoard(s, all, balls);
+        assertEquals("esto no es un registro", Files.readString(file)); // No se toca
+    }
+}
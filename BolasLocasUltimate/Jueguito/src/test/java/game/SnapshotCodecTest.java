@@ -0,0 +1,84 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Lo que decodifica el cliente debe coincidir con las bolas del servidor cuantizadas,
+// tanto con deltas como tras un keyframe y para un cliente que se conecta a mitad.
+class SnapshotCodecTest {
+    private static final int W = 1600;
+    private static final int H = 900;
+
+    private static void assertSameBalls(BallStore balls, SnapshotCodec client) {
+        assertEquals(balls.first(), client.first());
+        assertEquals(balls.end(), client.end());
+        for (int i = balls.first(); i < balls.end(); i++) {
+            assertEquals(NetProtocol.quantize(balls.getX(i)), Math.round(client.getX(i) * NetProtocol.QUANT), "x " + i);
+            assertEquals(NetProtocol.quantize(balls.getY(i)), Math.round(client.getY(i) * NetProtocol.QUANT), "y " + i);
+            assertEquals(Math.round(balls.getSize(i)), client.getSize(i));
+            assertEquals(balls.getColor(i) | 0xFF000000, client.getColor(i));
+        }
+    }
+
+    @Test
+    void deltasAndKeyframesRoundTrip() {
+        Random r = new Random(5);
+        GameWorld world = new GameWorld(200, W, H, 77);
+        world.setCollisions(true);
+        BallStore balls = world.balls();
+        SnapshotCodec server = new SnapshotCodec();
+        SnapshotCodec client = new SnapshotCodec();
+        SnapshotCodec late = null;
+        ByteBuffer buf = ByteBuffer.allocate(SnapshotCodec.maxBytes(1000));
+        int deltas = 0, keyframes = 0;
+        for (int frame = 0; frame < 300; frame++) {
+            world.step(16_666_666L);
+            if (frame % 7 == 0) { // Acierto o fallo: quita del frente o añade al fondo
+                int t = balls.front();
+                if (r.nextBoolean()) world.click((int) (balls.getX(t) + balls.getSize(t) / 2), (int) (balls.getY(t) + balls.getSize(t) / 2));
+                else world.click(-10, -10);
+            }
+            if (frame == 200) balls.remove(balls.first() + balls.size() / 2); // Cambia la versión
+
+            buf.clear();
+            boolean keyframe = server.encode(balls, buf);
+            if (keyframe) keyframes++; else deltas++;
+            buf.flip();
+            client.decode(buf);
+            assertFalse(buf.hasRemaining());
+            assertEquals(keyframe, client.isKeyframe());
+            assertSameBalls(balls, client);
+
+            if (frame == 100) { // Se conecta un cliente nuevo: recibe la referencia entera
+                late = new SnapshotCodec();
+                buf.clear();
+                server.writeKeyframe(buf);
+                buf.flip();
+                late.decode(buf);
+            } else if (late != null) {
+                buf.rewind(); // La misma instantánea que al primer cliente
+                late.decode(buf);
+            }
+            if (late != null) assertSameBalls(balls, late);
+        }
+        assertTrue(deltas > 250, "deltas: " + deltas);
+        assertTrue(keyframes >= 2, "keyframes: " + keyframes); // El primero y tras remove
+    }
+
+    @Test
+    void deltaWithoutReferenceIsRejected() {
+        BallStore balls = new BallStore(8);
+        balls.add(10, 10, 20, 0, 1, 0);
+        SnapshotCodec server = new SnapshotCodec();
+        ByteBuffer buf = ByteBuffer.allocate(SnapshotCodec.maxBytes(8));
+        server.encode(balls, buf);
+        buf.clear();
+        assertFalse(server.encode(balls, buf));
+        buf.flip();
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotCodec().decode(buf));
+    }
+}
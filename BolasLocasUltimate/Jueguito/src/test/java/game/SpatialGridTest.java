@@ -0,0 +1,73 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// La consulta por rejilla debe dar siempre la misma bola que el recorrido completo del BallStore.
+class SpatialGridTest {
+    private static final int W = 800;
+    private static final int H = 600;
+
+    private static BallStore random(Random r, int n) {
+        BallStore b = new BallStore(n);
+        for (int i = 0; i < n; i++) {
+            double size = 10 + r.nextInt(120);
+            b.add(r.nextInt(W) - 40, r.nextInt(H) - 40, size, r.nextDouble() * Math.PI * 2, 3, 0);
+        }
+        return b;
+    }
+
+    private static void assertMatchesBruteForce(SpatialGrid grid, BallStore b, Random r) {
+        for (int q = 0; q < 2000; q++) {
+            double px = r.nextDouble() * (W + 40) - 20;
+            double py = r.nextDouble() * (H + 40) - 20;
+            int expected = px < 0 || py < 0 || px >= W || py >= H ? -1 : b.topmostAt(px, py);
+            assertEquals(expected, grid.topmostAt(b, px, py), "punto " + px + ", " + py);
+        }
+    }
+
+    @Test
+    void topmostAtMatchesBruteForce() {
+        Random r = new Random(42);
+        BallStore b = random(r, 300);
+        SpatialGrid grid = new SpatialGrid();
+        grid.update(b, W, H);
+        assertMatchesBruteForce(grid, b, r);
+    }
+
+    @Test
+    void followsMovementAndRemovals() {
+        Random r = new Random(7);
+        BallStore b = random(r, 200);
+        SpatialGrid grid = new SpatialGrid();
+        for (int step = 0; step < 20; step++) {
+            for (int i = b.first(); i < b.end(); i++) {
+                b.x[i] += b.vx[i] * 10;
+                b.y[i] += b.vy[i] * 10;
+            }
+            grid.update(b, W, H);
+            // Clics entre pasos sin volver a indexar
+            for (int k = 0; k < 5 && !b.isEmpty(); k++) b.remove(b.first() + r.nextInt(b.size()));
+            assertMatchesBruteForce(grid, b, r);
+        }
+    }
+
+    @Test
+    void clicksBetweenUpdatesNeedNoRebuild() {
+        Random r = new Random(11);
+        BallStore b = random(r, 150);
+        SpatialGrid grid = new SpatialGrid();
+        grid.update(b, W, H);
+        // Como en GameWorld.click: aciertos quitan del frente y fallos añaden al fondo
+        for (int k = 0; k < 100; k++) {
+            if (r.nextBoolean() && !b.isEmpty()) b.removeFront();
+            else b.addBack(r.nextInt(W), r.nextInt(H), 10 + r.nextInt(120), 0, 0, 0);
+            assertMatchesBruteForce(grid, b, r);
+        }
+        grid.update(b, W, H);
+        assertMatchesBruteForce(grid, b, r);
+    }
+}
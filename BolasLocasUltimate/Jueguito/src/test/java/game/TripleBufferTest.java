@@ -0,0 +1,53 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// El consumidor ve siempre el último buffer publicado y nunca el que se está escribiendo.
+class TripleBufferTest {
+    @Test
+    void acquireReturnsTheLatestPublished() {
+        long[] a = new long[1], b = new long[1], c = new long[1];
+        TripleBuffer<long[]> t = new TripleBuffer<>(a, b, c);
+        long[] first = t.acquire(); // Sin publicar: el buffer inicial del consumidor
+        assertSame(c, first);
+
+        t.back()[0] = 1;
+        t.publish();
+        assertEquals(1, t.acquire()[0]);
+        assertSame(t.acquire(), t.acquire()); // Sin nada nuevo se queda con el mismo
+
+        t.back()[0] = 2;
+        t.publish();
+        t.back()[0] = 3;
+        t.publish();
+        long[] seen = t.acquire();
+        assertEquals(3, seen[0]); // Los intermedios se saltan
+        assertNotSame(seen, t.back());
+    }
+
+    @Test
+    void consumerNeverSeesATornBuffer() throws InterruptedException {
+        int n = 8;
+        TripleBuffer<long[]> t = new TripleBuffer<>(new long[n], new long[n], new long[n]);
+        int frames = 200_000;
+        Thread producer = new Thread(() -> {
+            for (long v = 1; v <= frames; v++) {
+                long[] buf = t.back();
+                for (int i = 0; i < n; i++) buf[i] = v;
+                t.publish();
+            }
+        });
+        producer.start();
+        long last = 0;
+        while (last < frames) {
+            long[] buf = t.acquire();
+            long v = buf[0];
+            for (int i = 1; i < n; i++) assertEquals(v, buf[i], "buffer a medio escribir");
+            assertTrue(v >= last, "un frame anterior después de uno nuevo");
+            last = v;
+        }
+        producer.join();
+    }
+}